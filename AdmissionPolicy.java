@@ -0,0 +1,24 @@
+/**
+ * The ways in which Simulator lets the cars waiting in front of the lot in.
+ * Whatever the policy, at most one car enters the lot per simulated second.
+ */
+public enum AdmissionPolicy {
+
+	/**
+	 * One waiting line in order of arrival; a car at the front that cannot park
+	 * blocks the cars behind it until a suitable spot is freed
+	 */
+	FIFO,
+
+	/**
+	 * One waiting line per car type; the car that has waited longest among the
+	 * cars at the front of the lines whose type can park enters
+	 */
+	OLDEST_FIRST,
+
+	/**
+	 * One waiting line per car type; the lines whose type can park take turns,
+	 * so a busy line cannot starve the others
+	 */
+	ROUND_ROBIN;
+}
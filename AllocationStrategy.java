@@ -0,0 +1,66 @@
+/**
+ * Chooses the spot a car parks in. A strategy keeps its own index of the free
+ * spots of a lot, which the lot updates whenever a spot is taken or freed. Spots
+ * are addressed by their position i * numSpotsPerRow + j.
+ */
+public interface AllocationStrategy {
+
+	/**
+	 * The available strategies
+	 */
+	enum Kind {
+		/**
+		 * The first compatible spot in row-major order (the original behaviour)
+		 */
+		FIRST_FIT,
+
+		/**
+		 * A spot of the smallest compatible type, so small cars leave the larger
+		 * spots to the cars that need them
+		 */
+		BEST_FIT,
+
+		/**
+		 * The compatible spot closest to the entrance, at spot (0, 0)
+		 */
+		NEAREST_ENTRANCE;
+	}
+
+	/**
+	 * @param kind           is the strategy
+	 * @param lotDesign      are the spot types (CarType ordinals) of the lot
+	 * @param numSpotsPerRow is the number of spots per row of the lot
+	 * @return a strategy of the given kind, with every parkable spot free
+	 */
+	static AllocationStrategy create(Kind kind, byte[] lotDesign, int numSpotsPerRow) {
+		switch (kind) {
+		case BEST_FIT:
+			return new BestFitStrategy(lotDesign);
+		case NEAREST_ENTRANCE:
+			return new NearestEntranceStrategy(lotDesign, numSpotsPerRow, 0, 0);
+		default:
+			return new FirstFitStrategy(lotDesign);
+		}
+	}
+
+	/**
+	 * @param carType is the type of the car to park
+	 * @return the position of the free spot chosen for the car, or -1 if no
+	 *         compatible spot is free; the spot is not claimed
+	 */
+	int find(CarType carType);
+
+	/**
+	 * Marks a spot as taken
+	 * 
+	 * @param position is the position of the spot
+	 */
+	void claim(int position);
+
+	/**
+	 * Marks a spot as free
+	 * 
+	 * @param position is the position of the spot
+	 */
+	void release(int position);
+}
@@ -0,0 +1,86 @@
+import java.util.Arrays;
+
+/**
+ * OccupancyStore keeping the occupancy in flat primitive arrays indexed by
+ * position. Parking a car stores its type, encoded plate and timestamp and
+ * does not allocate; Car and Spot objects are only created when getCar or
+ * getSpot is called.
+ */
+public class ArrayOccupancyStore implements OccupancyStore {
+
+	/**
+	 * Marker stored in carTypes for free positions
+	 */
+	private static final byte FREE = -1;
+
+	private static final CarType[] CAR_TYPES = CarType.values();
+
+	/**
+	 * Ordinal of the type of the parked car, or FREE
+	 */
+	private byte[] carTypes;
+
+	/**
+	 * Timestamp of the parked car
+	 */
+	private int[] timestamps;
+
+	/**
+	 * Encoded plate of the parked car (see Car.encodePlate), or -1 if its plate
+	 * cannot be encoded
+	 */
+	private int[] plateCodes;
+
+	/**
+	 * The parked cars whose plate cannot be encoded; created when first needed
+	 */
+	private Car[] unencodedCars;
+
+	public ArrayOccupancyStore(int size) {
+		carTypes = new byte[size];
+		timestamps = new int[size];
+		plateCodes = new int[size];
+		Arrays.fill(carTypes, FREE);
+	}
+
+	public boolean isOccupied(int position) {
+		return carTypes[position] != FREE;
+	}
+
+	public int getTimestamp(int position) {
+		return timestamps[position];
+	}
+
+	public Car getCar(int position) {
+		if (plateCodes[position] < 0) {
+			return unencodedCars[position];
+		}
+		return new Car(CAR_TYPES[carTypes[position]], plateCodes[position]);
+	}
+
+	public Spot getSpot(int position) {
+		if (carTypes[position] == FREE) {
+			return null;
+		}
+		return new Spot(getCar(position), timestamps[position]);
+	}
+
+	public void put(int position, Car car, int timestamp) {
+		carTypes[position] = (byte) car.getType().ordinal();
+		timestamps[position] = timestamp;
+		plateCodes[position] = car.getPlateCode();
+		if (car.getPlateCode() < 0) {
+			if (unencodedCars == null) {
+				unencodedCars = new Car[carTypes.length];
+			}
+			unencodedCars[position] = car;
+		}
+	}
+
+	public void clear(int position) {
+		carTypes[position] = FREE;
+		if (unencodedCars != null) {
+			unencodedCars[position] = null;
+		}
+	}
+}
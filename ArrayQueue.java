@@ -0,0 +1,132 @@
+/**
+ * Queue implementation backed by a circular array that doubles in size when
+ * full. Unlike LinkedQueue, enqueuing does not allocate a node per element.
+ */
+
+public class ArrayQueue<D> implements Queue<D> {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private Object[] elements;
+	private int front;
+	private int size;
+
+	public ArrayQueue() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity is the initial number of elements the queue can hold before
+	 *                 growing
+	 */
+	public ArrayQueue(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be positive");
+		}
+		elements = new Object[capacity];
+		front = 0;
+		size = 0;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void enqueue(D newElement) {
+
+		if (newElement == null) {
+			throw new NullPointerException("no null object in my queue !");
+		}
+
+		if (size == elements.length) {
+			grow(size + 1);
+		}
+		elements[(front + size) % elements.length] = newElement;
+		size++;
+	}
+
+	@SuppressWarnings("unchecked")
+	public D dequeue() {
+
+		if (isEmpty()) {
+			throw new IllegalStateException("Dequeue method called on an empty queue");
+		}
+
+		D returnedValue = (D) elements[front];
+		elements[front] = null;
+		front = (front + 1) % elements.length;
+		size--;
+		return returnedValue;
+	}
+
+	@SuppressWarnings("unchecked")
+	public D peek() {
+
+		if (isEmpty()) {
+			throw new IllegalStateException("Peek method called on an empty queue");
+		}
+
+		return (D) elements[front];
+	}
+
+	@SuppressWarnings("unchecked")
+	public int drainTo(Queue<? super D> target) {
+		if (target == this) {
+			throw new IllegalArgumentException("Cannot drain a queue into itself");
+		}
+		int count = size;
+		if (target instanceof ArrayQueue) {
+			((ArrayQueue<Object>) target).grow(target.size() + count);
+		}
+		for (int k = 0; k < count; k++) {
+			int index = (front + k) % elements.length;
+			target.enqueue((D) elements[index]);
+			elements[index] = null;
+		}
+		front = 0;
+		size = 0;
+		return count;
+	}
+
+	public void enqueueAll(Iterable<? extends D> elements) {
+		for (D element : elements) {
+			enqueue(element);
+		}
+	}
+
+	/**
+	 * Makes room for at least minCapacity elements, keeping their order
+	 */
+	private void grow(int minCapacity) {
+		if (minCapacity <= elements.length) {
+			return;
+		}
+		int capacity = Math.max(minCapacity, elements.length * 2);
+		Object[] copy = new Object[capacity];
+		for (int k = 0; k < size; k++) {
+			copy[k] = elements[(front + k) % elements.length];
+		}
+		elements = copy;
+		front = 0;
+	}
+
+	public String toString() {
+
+		StringBuffer returnedValue = new StringBuffer("[");
+
+		for (int k = 0; k < size; k++) {
+			if (k > 0) {
+				returnedValue.append(", ");
+			}
+			returnedValue.append(elements[(front + k) % elements.length]);
+		}
+
+		returnedValue.append("]");
+		return returnedValue.toString();
+
+	}
+}
@@ -0,0 +1,444 @@
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * An arrival rate that varies over time and repeats with a period, e.g. the
+ * hours of a day or of a week. The rate is given at breakpoints and is either
+ * held until the next breakpoint (step) or interpolated linearly to it, the last
+ * breakpoint wrapping around to the first one of the next period.
+ *
+ * Arrivals form a non-homogeneous Poisson process. They are sampled by
+ * inverting the integrated rate: the expected number of arrivals up to a time t,
+ * L(t), is kept at every breakpoint, and the next arrival after t is the time at
+ * which L grows by an exponential variate. Sampling an arrival therefore costs
+ * one random number and one binary search over the breakpoints, however long
+ * the time between arrivals. Thinning is available as well, for comparison.
+ *
+ * Text format: one "hour rate" pair per line, the hour being a number (e.g.
+ * 7.5, and beyond 24 for a weekly profile) or HH:MM, and the rate in cars per
+ * hour; optionally "period <hours>" (24 by default) and "linear" or "step"
+ * (the default). Blank lines and lines starting with # are ignored.
+ */
+public class ArrivalProfile {
+
+	/**
+	 * Length of the period, in seconds
+	 */
+	private long period;
+
+	/**
+	 * True if the rate is interpolated linearly between breakpoints
+	 */
+	private boolean linear;
+
+	/**
+	 * Breakpoints (seconds within the period, from 0, increasing) with the rate
+	 * there in cars per second; a last entry at the end of the period closes the
+	 * last segment
+	 */
+	private double[] times;
+	private double[] rates;
+
+	/**
+	 * Expected number of arrivals from the start of the period to each breakpoint;
+	 * the last entry is the expected number per period
+	 */
+	private double[] cumulative;
+
+	/**
+	 * The largest rate, in cars per second (for thinning)
+	 */
+	private double maxRate;
+
+	/**
+	 * @param periodHours is the length of the period, in hours
+	 * @param hours       are the breakpoints, in hours within the period, in
+	 *                    increasing order
+	 * @param perHour     are the rates at the breakpoints, in cars per hour
+	 * @param linear      is true to interpolate linearly between breakpoints,
+	 *                    false to hold each rate until the next breakpoint
+	 */
+	public ArrivalProfile(double periodHours, double[] hours, double[] perHour, boolean linear) {
+		if (hours.length == 0 || hours.length != perHour.length || !(periodHours > 0)) {
+			throw new IllegalArgumentException("A profile needs a positive period and one rate per breakpoint");
+		}
+		for (int k = 0; k < hours.length; k++) {
+			if (!(perHour[k] >= 0) || hours[k] < 0 || hours[k] >= periodHours || (k > 0 && hours[k] <= hours[k - 1])) {
+				throw new IllegalArgumentException("Invalid breakpoint: " + hours[k] + "h, " + perHour[k] + " cars/h");
+			}
+		}
+		this.period = Math.round(periodHours * 3600);
+		this.linear = linear;
+
+		int n = hours.length;
+		boolean atZero = hours[0] == 0;
+		int size = (atZero ? n : n + 1) + 1;
+		times = new double[size];
+		rates = new double[size];
+		int k = 0;
+		if (!atZero) {
+			// the rate at the start of the period wraps around from the last breakpoint
+			times[k] = 0;
+			rates[k++] = linear ? interpolate(hours[n - 1] - periodHours, perHour[n - 1], hours[0], perHour[0], 0)
+					: perHour[n - 1];
+		}
+		for (int i = 0; i < n; i++, k++) {
+			times[k] = hours[i] * 3600;
+			rates[k] = perHour[i];
+		}
+		times[k] = period;
+		rates[k] = linear ? rates[0] : rates[k - 1];
+		for (k = 0; k < size; k++) {
+			rates[k] /= 3600;
+		}
+		integrate();
+	}
+
+	private ArrivalProfile() {
+	}
+
+	/**
+	 * Computes the largest rate and the expected number of arrivals up to each
+	 * breakpoint
+	 */
+	private void integrate() {
+		maxRate = 0;
+		for (double rate : rates) {
+			maxRate = Math.max(maxRate, rate);
+		}
+		cumulative = new double[times.length];
+		for (int k = 1; k < times.length; k++) {
+			cumulative[k] = cumulative[k - 1] + segmentMass(k - 1, times[k] - times[k - 1]);
+		}
+	}
+
+	/**
+	 * @param perHour is the rate, in cars per hour
+	 * @return a profile with a constant rate
+	 */
+	public static ArrivalProfile constant(double perHour) {
+		return new ArrivalProfile(24, new double[] { 0 }, new double[] { perHour }, false);
+	}
+
+	/**
+	 * @param perHour are the rates of consecutive hours, in cars per hour
+	 * @return a profile holding each rate for an hour, whose period is as many
+	 *         hours as rates
+	 */
+	public static ArrivalProfile hourly(double[] perHour) {
+		double[] hours = new double[perHour.length];
+		for (int h = 0; h < hours.length; h++) {
+			hours[h] = h;
+		}
+		return new ArrivalProfile(perHour.length, hours, perHour, false);
+	}
+
+	/**
+	 * Loads a profile in the text format
+	 *
+	 * @param filename is the name of the file
+	 * @return the profile
+	 * @throws IOException if the file cannot be read or is not a valid profile
+	 */
+	public static ArrivalProfile load(String filename) throws IOException {
+		double periodHours = 24;
+		boolean linear = false;
+		double[] hours = new double[32];
+		double[] perHour = new double[32];
+		int n = 0;
+
+		try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+			String line;
+			for (int number = 1; (line = reader.readLine()) != null; number++) {
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				String[] tokens = line.split("\\s+");
+				try {
+					if (tokens[0].equalsIgnoreCase("period") && tokens.length == 2) {
+						periodHours = Double.parseDouble(tokens[1]);
+					} else if (tokens[0].equalsIgnoreCase("linear") && tokens.length == 1) {
+						linear = true;
+					} else if (tokens[0].equalsIgnoreCase("step") && tokens.length == 1) {
+						linear = false;
+					} else if (tokens.length == 2) {
+						if (n == hours.length) {
+							hours = Arrays.copyOf(hours, 2 * n);
+							perHour = Arrays.copyOf(perHour, 2 * n);
+						}
+						hours[n] = parseHour(tokens[0]);
+						perHour[n++] = Double.parseDouble(tokens[1]);
+					} else {
+						throw new NumberFormatException();
+					}
+				} catch (NumberFormatException e) {
+					throw new IOException(filename + ":" + number + ": expected \"hour rate\", \"period hours\", \"linear\" or \"step\": " + line);
+				}
+			}
+		}
+
+		try {
+			return new ArrivalProfile(periodHours, Arrays.copyOf(hours, n), Arrays.copyOf(perHour, n), linear);
+		} catch (IllegalArgumentException e) {
+			throw new IOException(filename + ": " + e.getMessage());
+		}
+	}
+
+	private static double parseHour(String token) {
+		int colon = token.indexOf(':');
+		if (colon < 0) {
+			return Double.parseDouble(token);
+		}
+		return Integer.parseInt(token.substring(0, colon)) + Integer.parseInt(token.substring(colon + 1)) / 60.0;
+	}
+
+	private static double interpolate(double t0, double r0, double t1, double r1, double t) {
+		return r0 + (r1 - r0) * (t - t0) / (t1 - t0);
+	}
+
+	/**
+	 * @return the expected number of arrivals within the first x seconds of
+	 *         segment k
+	 */
+	private double segmentMass(int k, double x) {
+		if (!linear) {
+			return rates[k] * x;
+		}
+		double slope = (rates[k + 1] - rates[k]) / (times[k + 1] - times[k]);
+		return (rates[k] + slope * x / 2) * x;
+	}
+
+	/**
+	 * @return the number of seconds from the start of segment k until the expected
+	 *         number of arrivals within the segment reaches mass
+	 */
+	private double segmentTime(int k, double mass) {
+		if (mass <= 0) {
+			return 0;
+		}
+		if (!linear) {
+			return mass / rates[k];
+		}
+		double slope = (rates[k + 1] - rates[k]) / (times[k + 1] - times[k]);
+		// root of slope / 2 * x^2 + rate * x - mass, in a form that is stable for any slope
+		double root = Math.sqrt(Math.max(0, rates[k] * rates[k] + 2 * slope * mass));
+		return 2 * mass / (rates[k] + root);
+	}
+
+	/**
+	 * @return the segment containing a time within the period
+	 */
+	private int segmentAt(double t) {
+		int k = Arrays.binarySearch(times, t);
+		return (k >= 0) ? Math.min(k, times.length - 2) : Math.max(0, -k - 2);
+	}
+
+	/**
+	 * @param t is a time, in seconds
+	 * @return the arrival rate at time t, in cars per hour
+	 */
+	public double rateAt(double t) {
+		double local = t - Math.floor(t / period) * period;
+		int k = segmentAt(local);
+		double rate = linear ? interpolate(times[k], rates[k], times[k + 1], rates[k + 1], local) : rates[k];
+		return rate * 3600;
+	}
+
+	/**
+	 * @param t is a time, in seconds, from 0
+	 * @return the expected number of arrivals from time 0 to time t
+	 */
+	public double arrivalsUntil(double t) {
+		double periods = Math.floor(t / period);
+		double local = t - periods * period;
+		int k = segmentAt(local);
+		return periods * cumulative[cumulative.length - 1] + cumulative[k] + segmentMass(k, local - times[k]);
+	}
+
+	/**
+	 * Inverse of arrivalsUntil
+	 *
+	 * @param mass is an expected number of arrivals
+	 * @return the first time at which the expected number of arrivals from time 0
+	 *         reaches mass, or positive infinity if it never does
+	 */
+	public double timeOfArrivals(double mass) {
+		double perPeriod = cumulative[cumulative.length - 1];
+		if (perPeriod <= 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double periods = Math.floor(mass / perPeriod);
+		double local = mass - periods * perPeriod;
+		// the last segment ending at or before local, skipping the segments without arrivals
+		int k = Arrays.binarySearch(cumulative, local);
+		if (k < 0) {
+			k = -k - 2;
+		} else {
+			while (k + 1 < cumulative.length && cumulative[k + 1] == local) {
+				k++;
+			}
+		}
+		k = Math.min(k, times.length - 2);
+		return periods * period + times[k] + Math.min(segmentTime(k, local - cumulative[k]), times[k + 1] - times[k]);
+	}
+
+	/**
+	 * Samples the next arrival by inverting the integrated rate
+	 *
+	 * @param mass   is the expected number of arrivals from time 0 to the last
+	 *               arrival (arrivalsUntil of its time)
+	 * @param source is the source of randomness
+	 * @return the same for the next arrival, whose time is timeOfArrivals of it
+	 */
+	public double nextArrivalMass(double mass, java.util.random.RandomGenerator source) {
+		return mass - Math.log(1.0 - source.nextDouble());
+	}
+
+	/**
+	 * Samples the next arrival by thinning: candidate arrivals are drawn at the
+	 * largest rate and each is kept with the probability of the rate at its time
+	 * over the largest rate
+	 *
+	 * @param t      is the time of the last arrival, in seconds
+	 * @param source is the source of randomness
+	 * @return the time of the next arrival, or positive infinity if there is none
+	 */
+	public double nextArrivalByThinning(double t, java.util.random.RandomGenerator source) {
+		if (maxRate <= 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double limit = maxRate * 3600;
+		do {
+			t -= Math.log(1.0 - source.nextDouble()) / maxRate;
+		} while (source.nextDouble() * limit >= rateAt(t));
+		return t;
+	}
+
+	/**
+	 * @param second is a (simulated) second
+	 * @return the probability that a car arrives within that second, for the
+	 *         simulations that check every second: the expected number of
+	 *         arrivals within it, at most 1
+	 */
+	public double probabilityAt(long second) {
+		return Math.min(1.0, arrivalsUntil(second + 1) - arrivalsUntil(second));
+	}
+
+	/**
+	 * @return the length of the period, in seconds
+	 */
+	public long getPeriod() {
+		return period;
+	}
+
+	/**
+	 * Writes the profile
+	 *
+	 * @param out is the stream written to
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void write(DataOutputStream out) throws IOException {
+		out.writeLong(period);
+		out.writeBoolean(linear);
+		out.writeInt(times.length);
+		for (int k = 0; k < times.length; k++) {
+			out.writeDouble(times[k]);
+			out.writeDouble(rates[k]);
+		}
+	}
+
+	/**
+	 * Reads a profile written by write
+	 *
+	 * @param in is the stream read from
+	 * @return the profile
+	 * @throws IOException if the stream cannot be read
+	 */
+	public static ArrivalProfile read(DataInputStream in) throws IOException {
+		ArrivalProfile profile = new ArrivalProfile();
+		profile.period = in.readLong();
+		profile.linear = in.readBoolean();
+		int size = in.readInt();
+		profile.times = new double[size];
+		profile.rates = new double[size];
+		for (int k = 0; k < size; k++) {
+			profile.times[k] = in.readDouble();
+			profile.rates[k] = in.readDouble();
+		}
+		profile.integrate();
+		return profile;
+	}
+
+	/**
+	 * Returns the breakpoints of the profile, one "hour rate" pair per line
+	 */
+	public String toString() {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append("period ").append(period / 3600.0).append(System.lineSeparator());
+		buffer.append(linear ? "linear" : "step").append(System.lineSeparator());
+		for (int k = 0; k < times.length - 1; k++) {
+			buffer.append(times[k] / 3600).append(' ').append(rates[k] * 3600).append(System.lineSeparator());
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * Samples arrivals from a profile with both methods and prints, per hour of
+	 * the period, the expected number of arrivals and the mean numbers sampled
+	 *
+	 * @param args the profile filename, and optionally the number of periods to
+	 *             sample and the seed
+	 * @throws Exception
+	 */
+	public static void main(String args[]) throws Exception {
+
+		if (args.length < 1) {
+			System.out.println("Usage: java ArrivalProfile <profile filename> [periods] [seed]");
+			System.out.println("Example: java ArrivalProfile weekday.profile 365 42");
+			return;
+		}
+
+		ArrivalProfile profile = load(args[0]);
+		int periods = (args.length > 1) ? Integer.parseInt(args[1]) : 100;
+		long seed = (args.length > 2) ? Long.parseLong(args[2]) : System.nanoTime();
+		double end = (double) profile.period * periods;
+		int hours = (int) ((profile.period + 3599) / 3600);
+
+		long[] inverse = new long[hours];
+		long[] thinning = new long[hours];
+
+		SplitMix64 random = new SplitMix64(seed);
+		long start = System.nanoTime();
+		long count = 0;
+		for (double mass = profile.nextArrivalMass(0, random), t; (t = profile.timeOfArrivals(mass)) < end; mass = profile
+				.nextArrivalMass(mass, random)) {
+			inverse[(int) ((t % profile.period) / 3600)]++;
+			count++;
+		}
+		long inverseNanos = System.nanoTime() - start;
+
+		random = new SplitMix64(seed);
+		start = System.nanoTime();
+		for (double t = profile.nextArrivalByThinning(0, random); t < end; t = profile.nextArrivalByThinning(t,
+				random)) {
+			thinning[(int) ((t % profile.period) / 3600)]++;
+		}
+		long thinningNanos = System.nanoTime() - start;
+
+		System.out.println("seed: " + seed + ", " + periods + " periods, " + count + " arrivals");
+		System.out.println(String.format("%5s %10s %10s %10s", "hour", "expected", "inverse", "thinning"));
+		for (int h = 0; h < hours; h++) {
+			double expected = profile.arrivalsUntil(Math.min((h + 1) * 3600.0, profile.period))
+					- profile.arrivalsUntil(h * 3600.0);
+			System.out.println(String.format("%5d %10.2f %10.2f %10.2f", h, expected, (double) inverse[h] / periods,
+					(double) thinning[h] / periods));
+		}
+		System.out.println(String.format("inverse integrated rate: %.1f ns/arrival, thinning: %.1f ns/arrival",
+				(double) inverseNanos / Math.max(1, count), (double) thinningNanos / Math.max(1, count)));
+	}
+}
@@ -0,0 +1,221 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * SimulationEventSink writing ENTERED and EXITED events as text lines (in the
+ * same format as ConsoleEventSink) on a background thread.
+ * 
+ * The simulation thread only copies each event into a batch of primitive arrays.
+ * Full batches are handed to the writer thread, which formats them and writes
+ * them to the underlying Writer, and then hands the empty batches back. A fixed
+ * number of batches is allocated up front; when they are all waiting to be
+ * written, the simulation thread blocks until one is free.
+ */
+public class AsyncTextEventSink implements SimulationEventSink {
+
+	private static final int BATCH_SIZE = 4096;
+	private static final int BATCH_COUNT = 8;
+
+	private static final EventKind[] KINDS = EventKind.values();
+
+	/**
+	 * A batch of events
+	 */
+	private static class Batch {
+		private final byte[] kinds = new byte[BATCH_SIZE];
+		private final Car[] cars = new Car[BATCH_SIZE];
+		private final int[] clocks = new int[BATCH_SIZE];
+		private final int[] occupancies = new int[BATCH_SIZE];
+		private int size;
+	}
+
+	/**
+	 * Marker batch telling the writer thread to stop
+	 */
+	private static final Batch STOP = new Batch();
+
+	private final Writer out;
+	private final BlockingQueue<Batch> full = new ArrayBlockingQueue<Batch>(BATCH_COUNT + 1);
+	private final BlockingQueue<Batch> free = new ArrayBlockingQueue<Batch>(BATCH_COUNT);
+	private final Thread writerThread;
+
+	/**
+	 * The batch being filled by the simulation thread
+	 */
+	private Batch current;
+
+	/**
+	 * Number of batches handed to the writer thread and not written yet; guarded
+	 * by this
+	 */
+	private int pending;
+
+	/**
+	 * The first error of the writer thread (an IOException or an exception
+	 * thrown while formatting an event), rethrown to the simulation thread
+	 */
+	private volatile Throwable failure;
+
+	private boolean closed;
+
+	/**
+	 * @param out is where the events are written; it is closed by close()
+	 */
+	public AsyncTextEventSink(Writer out) {
+		this.out = out;
+		for (int k = 0; k < BATCH_COUNT; k++) {
+			free.add(new Batch());
+		}
+		current = take(free);
+
+		writerThread = new Thread(this::writeBatches, "event-writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	public void publish(EventKind kind, Car car, int clock, int occupancy, int row, int spot) {
+		if (kind == EventKind.VACATED) {
+			return;
+		}
+		checkFailure(); // the batch may be full if a hand-over failed
+		Batch batch = current;
+		batch.kinds[batch.size] = (byte) kind.ordinal();
+		batch.cars[batch.size] = car;
+		batch.clocks[batch.size] = clock;
+		batch.occupancies[batch.size] = occupancy;
+		if (++batch.size == BATCH_SIZE) {
+			handOver();
+			current = take(free);
+		}
+	}
+
+	public void flush() {
+		if (closed) {
+			return;
+		}
+		if (current.size > 0) {
+			handOver();
+			current = take(free);
+		}
+		synchronized (this) {
+			while (pending > 0 && failure == null) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+		}
+		try {
+			out.flush();
+		} catch (IOException e) {
+			failure = e;
+		}
+		checkFailure();
+	}
+
+	/**
+	 * Flushes the events, stops the writer thread and closes the Writer, even
+	 * if writing failed; the first failure is then rethrown
+	 */
+	public void close() {
+		if (closed) {
+			return;
+		}
+		try {
+			flush();
+		} finally {
+			closed = true;
+			full.add(STOP);
+			try {
+				writerThread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			try {
+				out.close();
+			} catch (IOException e) {
+				if (failure == null) {
+					failure = e;
+				}
+			}
+		}
+		checkFailure();
+	}
+
+	private void handOver() {
+		checkFailure();
+		synchronized (this) {
+			pending++;
+		}
+		full.add(current);
+	}
+
+	private void checkFailure() {
+		Throwable t = failure;
+		if (t instanceof IOException) {
+			throw new UncheckedIOException((IOException) t);
+		} else if (t != null) {
+			throw new IllegalStateException("Writing the events failed", t);
+		}
+	}
+
+	private static Batch take(BlockingQueue<Batch> queue) {
+		try {
+			return queue.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for an event batch", e);
+		}
+	}
+
+	/**
+	 * Body of the writer thread. After a failure, the batches are still handed
+	 * back, unwritten, so the simulation thread never waits for the writer
+	 * thread forever and sees the failure on its next hand-over or flush.
+	 */
+	private void writeBatches() {
+		StringBuilder text = new StringBuilder(BATCH_SIZE * 48);
+		try {
+			while (true) {
+				Batch batch = take(full);
+				if (batch == STOP) {
+					return;
+				}
+				try {
+					if (failure == null) {
+						text.setLength(0);
+						for (int k = 0; k < batch.size; k++) {
+							text.append(batch.cars[k]).append(' ').append(KINDS[batch.kinds[k]])
+									.append(" at timestep ").append(batch.clocks[k]).append("; occupancy is a ")
+									.append(batch.occupancies[k]).append(System.lineSeparator());
+						}
+						out.write(text.toString());
+					}
+				} catch (Throwable t) {
+					failure = t;
+				} finally {
+					java.util.Arrays.fill(batch.cars, 0, batch.size, null);
+					batch.size = 0;
+					free.add(batch);
+					synchronized (this) {
+						pending--;
+						notifyAll();
+					}
+				}
+			}
+		} catch (Throwable t) {
+			if (failure == null) {
+				failure = t;
+			}
+			synchronized (this) {
+				pending = 0;
+				notifyAll();
+			}
+		}
+	}
+}
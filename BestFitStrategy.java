@@ -0,0 +1,29 @@
+/**
+ * Allocates a spot of the smallest compatible type (in the order ELECTRIC,
+ * SMALL, REGULAR, LARGE), the first one in row-major order among the free spots
+ * of that type. Small cars therefore only take larger spots when the spots of
+ * their own type are full.
+ */
+public class BestFitStrategy extends FirstFitStrategy {
+
+	/**
+	 * @param lotDesign are the spot types (CarType ordinals) of the lot; every
+	 *                  parkable spot starts free
+	 */
+	public BestFitStrategy(byte[] lotDesign) {
+		super(lotDesign);
+	}
+
+	public int find(CarType carType) {
+		// CarType ordinals go from the smallest to the largest spot type
+		for (CarType spotType : CAR_TYPES) {
+			if (ParkingLot.fits(carType, spotType)) {
+				int candidate = freeSpots[spotType.ordinal()].first();
+				if (candidate >= 0) {
+					return candidate;
+				}
+			}
+		}
+		return -1;
+	}
+}
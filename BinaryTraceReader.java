@@ -0,0 +1,200 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Streams the records of a trace written by BinaryTraceSink. The file is mapped
+ * read-only, region by region, and read with a cursor: next() moves to the next
+ * record and the getters return its fields, so reading does not allocate.
+ */
+public class BinaryTraceReader implements AutoCloseable {
+
+	private static final EventKind[] KINDS = EventKind.values();
+	private static final CarType[] CAR_TYPES = CarType.values();
+
+	/**
+	 * Number of records per mapped region
+	 */
+	private static final int RECORDS_PER_REGION = 1 << 20;
+
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private final int numRows;
+	private final int numSpotsPerRow;
+	private final long count;
+
+	private MappedByteBuffer region;
+	private long read;
+
+	private int clock;
+	private int plateCode;
+	private int packed;
+
+	/**
+	 * @param filename is the name of the trace file
+	 * @throws IOException if the file cannot be read or is not a trace
+	 */
+	public BinaryTraceReader(String filename) throws IOException {
+		file = new RandomAccessFile(filename, "r");
+		channel = file.getChannel();
+		MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, BinaryTraceSink.HEADER_SIZE);
+		if (header.getInt() != BinaryTraceSink.MAGIC || header.getInt() != BinaryTraceSink.VERSION
+				|| header.getInt() != BinaryTraceSink.RECORD_SIZE) {
+			file.close();
+			throw new IOException(filename + " is not a parking lot trace");
+		}
+		numRows = header.getInt();
+		numSpotsPerRow = header.getInt();
+		count = Math.min(header.getLong(),
+				(channel.size() - BinaryTraceSink.HEADER_SIZE) / BinaryTraceSink.RECORD_SIZE);
+	}
+
+	public int getNumRows() {
+		return numRows;
+	}
+
+	public int getNumSpotsPerRow() {
+		return numSpotsPerRow;
+	}
+
+	/**
+	 * @return the number of records in the trace
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Moves to the next record
+	 * 
+	 * @return false if there are no more records
+	 * @throws IOException if the file cannot be read
+	 */
+	public boolean next() throws IOException {
+		if (read == count) {
+			return false;
+		}
+		if (region == null || !region.hasRemaining()) {
+			long records = Math.min(RECORDS_PER_REGION, count - read);
+			region = channel.map(FileChannel.MapMode.READ_ONLY,
+					BinaryTraceSink.HEADER_SIZE + read * BinaryTraceSink.RECORD_SIZE,
+					records * BinaryTraceSink.RECORD_SIZE);
+			region.order(ByteOrder.BIG_ENDIAN);
+		}
+		clock = region.getInt();
+		plateCode = region.getInt();
+		packed = region.getInt();
+		read++;
+		return true;
+	}
+
+	public int getClock() {
+		return clock;
+	}
+
+	public EventKind getKind() {
+		return KINDS[packed >>> BinaryTraceSink.KIND_SHIFT];
+	}
+
+	public CarType getCarType() {
+		return CAR_TYPES[(packed >>> BinaryTraceSink.TYPE_SHIFT) & 0x7];
+	}
+
+	/**
+	 * @return the encoded plate of the car, or -1 if its plate could not be encoded
+	 */
+	public int getPlateCode() {
+		return plateCode;
+	}
+
+	/**
+	 * @return the row of the spot concerned, or -1 if the event does not concern a
+	 *         spot
+	 */
+	public int getRow() {
+		int position = packed & BinaryTraceSink.POSITION_MASK;
+		return (position == BinaryTraceSink.POSITION_MASK) ? -1 : position / numSpotsPerRow;
+	}
+
+	/**
+	 * @return the index of the spot within its row, or -1 if the event does not
+	 *         concern a spot
+	 */
+	public int getSpot() {
+		int position = packed & BinaryTraceSink.POSITION_MASK;
+		return (position == BinaryTraceSink.POSITION_MASK) ? -1 : position % numSpotsPerRow;
+	}
+
+	/**
+	 * @return the car of the current record (built from its type and encoded plate)
+	 */
+	public Car getCar() {
+		return (plateCode < 0) ? new Car(getCarType(), "?") : new Car(getCarType(), plateCode);
+	}
+
+	public void close() throws IOException {
+		region = null;
+		file.close();
+	}
+
+	/**
+	 * Rebuilds the occupancy of a lot at a given time from a trace: every car that
+	 * entered and had not vacated its spot by then is parked at its spot, with the
+	 * time it entered as its timestamp.
+	 * 
+	 * @param filename is the name of the trace file
+	 * @param design   is the design of the traced lot (its occupancy is ignored)
+	 * @param clock    is the time at which to rebuild the occupancy
+	 * @return a new lot with the occupancy at the end of second clock
+	 * @throws IOException if the trace cannot be read or does not match the design
+	 */
+	public static ParkingLot replay(String filename, ParkingLot design, int clock) throws IOException {
+		ParkingLot lot = new ParkingLot(design);
+		try (BinaryTraceReader reader = new BinaryTraceReader(filename)) {
+			if (reader.getNumRows() != lot.getNumRows() || reader.getNumSpotsPerRow() != lot.getNumSpotsPerRow()) {
+				throw new IOException("The trace " + filename + " does not match the lot design");
+			}
+			while (reader.next() && reader.getClock() <= clock) {
+				if (reader.getKind() == EventKind.ENTERED) {
+					lot.park(reader.getRow(), reader.getSpot(), reader.getCar(), reader.getClock());
+				} else if (reader.getKind() == EventKind.VACATED) {
+					lot.remove(reader.getRow(), reader.getSpot());
+				}
+			}
+		}
+		return lot;
+	}
+
+	/**
+	 * Prints a summary of a trace and the occupancy of the lot at a given time
+	 * 
+	 * @param args the trace filename, the lot-design filename and the time
+	 * @throws Exception
+	 */
+	public static void main(String args[]) throws Exception {
+
+		if (args.length < 3) {
+			System.out.println("Usage: java BinaryTraceReader <trace filename> <lot-design filename> <timestep>");
+			return;
+		}
+
+		long[] counts = new long[KINDS.length];
+		long start = System.currentTimeMillis();
+		try (BinaryTraceReader reader = new BinaryTraceReader(args[0])) {
+			while (reader.next()) {
+				counts[reader.getKind().ordinal()]++;
+			}
+		}
+		long end = System.currentTimeMillis();
+		for (EventKind kind : KINDS) {
+			System.out.println(kind + ": " + counts[kind.ordinal()]);
+		}
+		System.out.println("Reading took " + (end - start) + "ms.");
+
+		ParkingLot lot = replay(args[0], new ParkingLot(args[1]), Integer.parseInt(args[2]));
+		System.out.println(lot);
+		System.out.println("Occupancy at timestep " + args[2] + ": " + lot.getTotalOccupancy());
+	}
+}
@@ -0,0 +1,120 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * SimulationEventSink writing every event as a fixed-width binary record to a
+ * memory-mapped file. The file is mapped in large regions, one after the other;
+ * writing a record is a few stores into the current region.
+ * 
+ * File format (all values big-endian):
+ * 
+ * header: MAGIC, VERSION, RECORD_SIZE, number of rows, number of spots per row
+ * (ints), then the number of records (long), updated on every flush
+ * 
+ * record: clock, encoded plate (Car.getPlateCode(), -1 if it cannot be encoded),
+ * and a packed int holding the event kind ordinal (bits 30-31), the car type
+ * ordinal (bits 27-29) and the spot position row * spotsPerRow + spot (bits
+ * 0-26, all ones for events that do not concern a spot)
+ * 
+ * Records are 12 bytes, against about 45 bytes for a line of text.
+ * BinaryTraceReader reads them back.
+ */
+public class BinaryTraceSink implements SimulationEventSink {
+
+	public static final int MAGIC = 0x50545243; // "PTRC"
+	public static final int VERSION = 1;
+	public static final int HEADER_SIZE = 28;
+	public static final int RECORD_SIZE = 12;
+
+	public static final int POSITION_BITS = 27;
+	public static final int POSITION_MASK = (1 << POSITION_BITS) - 1;
+	public static final int TYPE_SHIFT = 27;
+	public static final int KIND_SHIFT = 30;
+
+	/**
+	 * Number of records per mapped region
+	 */
+	private static final int RECORDS_PER_REGION = 1 << 20;
+
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private final int numRows;
+	private final int numSpotsPerRow;
+
+	private MappedByteBuffer region;
+	private long regionStart;
+	private long count;
+
+	/**
+	 * @param filename is the name of the trace file, overwritten if it exists
+	 * @param lot      is the lot being simulated
+	 * @throws IOException if the file cannot be created
+	 */
+	public BinaryTraceSink(String filename, ParkingLot lot) throws IOException {
+		numRows = lot.getNumRows();
+		numSpotsPerRow = lot.getNumSpotsPerRow();
+		if ((long) numRows * numSpotsPerRow > POSITION_MASK) {
+			throw new IllegalArgumentException("Lots of more than " + POSITION_MASK + " spots cannot be traced");
+		}
+
+		file = new RandomAccessFile(filename, "rw");
+		file.setLength(0);
+		channel = file.getChannel();
+		regionStart = HEADER_SIZE;
+		mapRegion();
+	}
+
+	public void publish(EventKind kind, Car car, int clock, int occupancy, int row, int spot) {
+		if (!region.hasRemaining()) {
+			regionStart += region.capacity();
+			try {
+				mapRegion();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		int position = (row < 0) ? POSITION_MASK : row * numSpotsPerRow + spot;
+		region.putInt(clock);
+		region.putInt(car.getPlateCode());
+		region.putInt((kind.ordinal() << KIND_SHIFT) | (car.getType().ordinal() << TYPE_SHIFT) | position);
+		count++;
+	}
+
+	public void flush() {
+		try {
+			writeHeader();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		region.force();
+	}
+
+	public void close() {
+		try {
+			writeHeader();
+			region.force();
+			region = null;
+			channel.truncate(HEADER_SIZE + count * RECORD_SIZE);
+			file.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void mapRegion() throws IOException {
+		region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, (long) RECORDS_PER_REGION * RECORD_SIZE);
+		region.order(ByteOrder.BIG_ENDIAN);
+	}
+
+	private void writeHeader() throws IOException {
+		MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+		header.putInt(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).putInt(numRows).putInt(numSpotsPerRow)
+				.putLong(count);
+		header.force();
+	}
+}
@@ -0,0 +1,293 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Simulates several lots of a campus together. Each lot is simulated by its own
+ * Simulator; a car that waits too long at a lot is routed to the next lot (in
+ * the order the lots were given, wrapping around), which it reaches after a
+ * travel delay. A car routed through every lot without parking leaves the
+ * campus.
+ * 
+ * The lots are simulated in parallel, in lock-step windows as long as the
+ * travel delay: a car routed during a window cannot reach its next lot before
+ * the window ends, so the lots only need to exchange routed cars between
+ * windows. Every lot draws from its own stream, split from one seeded root
+ * generator, so a run only depends on its seed, not on the number of threads.
+ */
+public class Campus {
+
+	private String[] names;
+	private Simulator[] lots;
+	private int steps;
+	private int travelDelay;
+
+	/**
+	 * Cars routed away from each lot during the current window
+	 */
+	private Queue<Spot>[] outboxes;
+
+	/**
+	 * Number of cars routed to each lot, of cars that left the campus, and of
+	 * cars still travelling to their next lot when the simulation ended
+	 */
+	private int[] routedIn;
+	private int leftCampus;
+	private int inTransit;
+
+	/**
+	 * @param names              are the names of the lots
+	 * @param designs            are the designs of the lots (they are copied, not
+	 *                           modified)
+	 * @param perHourArrivalRate is the HOURLY rate at which cars show up at each lot
+	 * @param steps              is the total number of steps for simulation
+	 * @param mode               is how the simulations are advanced
+	 * @param maxWait            is the number of seconds after which a car that
+	 *                           could not park is routed to the next lot
+	 * @param travelDelay        is the number of seconds a routed car takes to
+	 *                           reach the next lot (at least 1)
+	 * @param seed               is the seed from which the streams of the lots are
+	 *                           derived
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Campus(String[] names, ParkingLot[] designs, int perHourArrivalRate, int steps, SimulationMode mode,
+			int maxWait, int travelDelay, long seed) {
+		if (maxWait < 0 || travelDelay < 1) {
+			throw new IllegalArgumentException("Invalid overflow: max wait " + maxWait + ", travel delay " + travelDelay);
+		}
+		this.names = names.clone();
+		this.steps = steps;
+		this.travelDelay = travelDelay;
+
+		RandomSource root = new SplitMix64(seed);
+		lots = new Simulator[designs.length];
+		outboxes = new Queue[designs.length];
+		for (int k = 0; k < lots.length; k++) {
+			lots[k] = createLot(designs[k], perHourArrivalRate, steps, mode, maxWait, travelDelay, root.split());
+			outboxes[k] = new ArrayQueue<Spot>();
+		}
+		routedIn = new int[lots.length];
+	}
+
+	/**
+	 * Creates the simulator of one lot of a campus, silent and routing the cars
+	 * that wait too long
+	 * 
+	 * @return the simulator
+	 */
+	static Simulator createLot(ParkingLot design, int perHourArrivalRate, int steps, SimulationMode mode,
+			int maxWait, int travelDelay, java.util.random.RandomGenerator stream) {
+		Simulator sim = new Simulator(new ParkingLot(design), perHourArrivalRate, steps, mode, stream);
+		sim.setEventSink(NullEventSink.INSTANCE);
+		sim.setOverflow(maxWait, travelDelay);
+		return sim;
+	}
+
+	/**
+	 * Runs the simulation of the campus
+	 * 
+	 * @param threads is the number of worker threads
+	 * @throws Exception if the simulation of a lot fails
+	 */
+	public void run(int threads) throws Exception {
+		for (Simulator lot : lots) {
+			lot.start();
+		}
+		leftCampus = 0;
+		inTransit = 0;
+		Arrays.fill(routedIn, 0);
+
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, lots.length)));
+		try {
+			List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+			for (int window = 0; window < steps; window += travelDelay) {
+				final int end = (int) Math.min((long) window + travelDelay, steps);
+				tasks.clear();
+				for (int k = 0; k < lots.length; k++) {
+					final int lot = k;
+					tasks.add(() -> {
+						lots[lot].advanceTo(end);
+						lots[lot].drainOverflow(outboxes[lot]);
+						return null;
+					});
+				}
+				for (Future<Void> done : pool.invokeAll(tasks)) {
+					done.get();
+				}
+				exchange();
+			}
+		} finally {
+			pool.shutdown();
+		}
+
+		for (Simulator lot : lots) {
+			lot.finish();
+		}
+	}
+
+	/**
+	 * Hands the cars routed during a window to their next lots
+	 */
+	private void exchange() {
+		for (int k = 0; k < lots.length; k++) {
+			while (!outboxes[k].isEmpty()) {
+				RoutedSpot s = (RoutedSpot) outboxes[k].dequeue();
+				int next = destination(s, k, lots.length, steps);
+				if (next == LEFT_CAMPUS) {
+					leftCampus++;
+				} else if (next == IN_TRANSIT) {
+					inTransit++;
+				} else {
+					lots[next].scheduleArrival(s);
+					routedIn[next]++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Destinations of routed cars that do not reach another lot
+	 */
+	static final int LEFT_CAMPUS = -1;
+	static final int IN_TRANSIT = -2;
+
+	/**
+	 * @param s       is a car routed away from a lot
+	 * @param lot     is the index of that lot
+	 * @param numLots is the number of lots
+	 * @param steps   is the total number of steps for simulation
+	 * @return the index of the lot the car is routed to; LEFT_CAMPUS if the car
+	 *         has been routed through every lot; IN_TRANSIT if it only reaches
+	 *         the next lot after the end of the simulation
+	 */
+	static int destination(RoutedSpot s, int lot, int numLots, int steps) {
+		if (s.getHops() >= numLots) {
+			return LEFT_CAMPUS;
+		}
+		if (s.getTimestamp() >= steps) {
+			return IN_TRANSIT;
+		}
+		return (lot + 1) % numLots;
+	}
+
+	/**
+	 * @param lot is the index of a lot
+	 * @return the simulator of the lot
+	 */
+	public Simulator getLot(int lot) {
+		return lots[lot];
+	}
+
+	/**
+	 * @param lot is the index of a lot
+	 * @return the number of cars routed to the lot from the previous lot
+	 */
+	public int getRoutedIn(int lot) {
+		return routedIn[lot];
+	}
+
+	/**
+	 * @return the number of cars that were routed through every lot without
+	 *         parking and left the campus
+	 */
+	public int getLeftCampus() {
+		return leftCampus;
+	}
+
+	/**
+	 * @return the number of cars still travelling to their next lot when the
+	 *         simulation ended
+	 */
+	public int getInTransit() {
+		return inTransit;
+	}
+
+	/**
+	 * Returns a table of the results of the lots, one line per lot
+	 */
+	public String toString() {
+		int[][] results = new int[lots.length][];
+		for (int k = 0; k < lots.length; k++) {
+			results[k] = results(lots[k], routedIn[k]);
+		}
+		return format(names, results, leftCampus, inTransit);
+	}
+
+	/**
+	 * @param lot      is the simulator of a lot whose simulation has ended
+	 * @param routedIn is the number of cars routed to the lot
+	 * @return the capacity, entered, exited, queue length, routed out and routed in
+	 *         counts of the lot
+	 */
+	static int[] results(Simulator lot, int routedIn) {
+		return new int[] { lot.getLot().getTotalCapacity(), lot.getEnteredCount(), lot.getExitedCount(),
+				lot.getIncomingQueueLength(), lot.getRoutedCount(), routedIn };
+	}
+
+	/**
+	 * @return a table of the results of the lots of a campus, one line per lot
+	 */
+	static String format(String[] names, int[][] results, int leftCampus, int inTransit) {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append(String.format("%-20s %8s %8s %8s %8s %10s %10s", "lot", "capacity", "entered", "exited",
+				"queue", "routed out", "routed in")).append(System.lineSeparator());
+		int entered = 0, exited = 0, queue = 0;
+		for (int k = 0; k < names.length; k++) {
+			int[] r = results[k];
+			buffer.append(String.format("%-20s %8d %8d %8d %8d %10d %10d", names[k], r[0], r[1], r[2], r[3], r[4],
+					r[5])).append(System.lineSeparator());
+			entered += r[1];
+			exited += r[2];
+			queue += r[3];
+		}
+		buffer.append("total: entered ").append(entered).append(", exited ").append(exited)
+				.append(", waiting at the end ").append(queue).append(", left the campus ").append(leftCampus)
+				.append(", in transit ").append(inTransit);
+		return buffer.toString();
+	}
+
+	/**
+	 * Simulates a campus for 24h and prints the results of its lots
+	 * 
+	 * @param args the hourly rate of arrival at each lot, the maximum wait and the
+	 *             travel delay (in seconds), the simulation mode, the seed, and
+	 *             the lot-design filenames
+	 * @throws Exception
+	 */
+	public static void main(String args[]) throws Exception {
+
+		if (args.length < 6) {
+			System.out.println(
+					"Usage: java Campus <hourly rate of arrival> <max wait (s)> <travel delay (s)> <mode> <seed> <lot-design filename>...");
+			System.out.println("Example: java Campus 14 900 300 NEXT_EVENT 42 parking.inf parking2.inf parking3.inf");
+			return;
+		}
+
+		int rate = Integer.parseInt(args[0]);
+		int maxWait = Integer.parseInt(args[1]);
+		int travelDelay = Integer.parseInt(args[2]);
+		SimulationMode mode = SimulationMode.valueOf(args[3].toUpperCase());
+		long seed = Long.parseLong(args[4]);
+
+		String[] names = new String[args.length - 5];
+		ParkingLot[] designs = new ParkingLot[names.length];
+		for (int k = 0; k < names.length; k++) {
+			names[k] = args[k + 5];
+			designs[k] = new ParkingLot(names[k]);
+		}
+
+		Campus campus = new Campus(names, designs, rate, Simulator.SIMULATION_DURATION, mode, maxWait, travelDelay,
+				seed);
+
+		long start = System.currentTimeMillis();
+		campus.run(names.length);
+		long end = System.currentTimeMillis();
+
+		System.out.println(campus);
+		System.out.println("Simulation took " + (end - start) + "ms.");
+	}
+}
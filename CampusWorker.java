@@ -0,0 +1,141 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * A worker process of a DistributedCampus. It connects to the coordinator,
+ * receives the campus and the lots it simulates, and then simulates them window
+ * by window: at the end of each window it sends the cars routed away from its
+ * lots and waits for the cars routed to them before starting the next window.
+ * Windows are as long as the travel delay between lots, so no car can reach a
+ * lot within the window in which it was routed (conservative synchronisation
+ * with the travel delay as lookahead).
+ * 
+ * Every lot draws from the same stream as in a single-process Campus with the
+ * same seed, so the results are the same.
+ * 
+ * Usage: java CampusWorker <coordinator host> <coordinator port>
+ */
+public class CampusWorker {
+
+	/**
+	 * Writes cars, with their timestamps and hop counts, and empties the queue
+	 * 
+	 * @param out  is the stream written to
+	 * @param cars are the cars (RoutedSpot instances)
+	 * @throws IOException if the stream cannot be written
+	 */
+	static void writeCars(DataOutputStream out, Queue<Spot> cars) throws IOException {
+		out.writeInt(cars.size());
+		while (!cars.isEmpty()) {
+			cars.dequeue().write(out);
+		}
+	}
+
+	/**
+	 * Reads cars written by writeCars
+	 * 
+	 * @param in     is the stream read from
+	 * @param target is the queue receiving the cars, in the order written
+	 * @throws IOException if the stream cannot be read
+	 */
+	static void readCars(DataInputStream in, Queue<Spot> target) throws IOException {
+		int count = in.readInt();
+		for (int k = 0; k < count; k++) {
+			target.enqueue(Spot.read(in));
+		}
+	}
+
+	/**
+	 * Runs the worker side of the protocol (see DistributedCampus)
+	 * 
+	 * @param in  is the stream from the coordinator
+	 * @param out is the stream to the coordinator
+	 * @throws IOException if the coordinator cannot be reached
+	 */
+	static void serve(DataInputStream in, DataOutputStream out) throws IOException {
+
+		// the campus
+		int numLots = in.readInt();
+		ParkingLot[] designs = new ParkingLot[numLots];
+		for (int k = 0; k < numLots; k++) {
+			int rows = in.readInt();
+			int perRow = in.readInt();
+			byte[] spotTypes = new byte[rows * perRow];
+			in.readFully(spotTypes);
+			designs[k] = new ParkingLot(new LotDesign(rows, perRow, spotTypes), OccupancyStore.Kind.OBJECT);
+			designs[k].setAllocationStrategy(AllocationStrategy.Kind.values()[in.readByte()]);
+		}
+		int rate = in.readInt();
+		int steps = in.readInt();
+		SimulationMode mode = SimulationMode.values()[in.readByte()];
+		int maxWait = in.readInt();
+		int travelDelay = in.readInt();
+		long seed = in.readLong();
+
+		// the lots of this worker, in increasing order
+		int[] assigned = new int[in.readInt()];
+		for (int i = 0; i < assigned.length; i++) {
+			assigned[i] = in.readInt();
+		}
+
+		// same streams as Campus: split from the root in lot order
+		RandomSource root = new SplitMix64(seed);
+		Simulator[] lots = new Simulator[assigned.length];
+		for (int k = 0, i = 0; k < numLots; k++) {
+			RandomSource stream = root.split();
+			if (i < assigned.length && assigned[i] == k) {
+				lots[i++] = Campus.createLot(designs[k], rate, steps, mode, maxWait, travelDelay, stream);
+			}
+		}
+
+		for (Simulator lot : lots) {
+			lot.start();
+		}
+
+		Queue<Spot> cars = new ArrayQueue<Spot>();
+		for (int window = 0; window < steps; window += travelDelay) {
+			int end = (int) Math.min((long) window + travelDelay, steps);
+			for (Simulator lot : lots) {
+				lot.advanceTo(end);
+				lot.drainOverflow(cars);
+				writeCars(out, cars);
+			}
+			out.flush();
+
+			for (Simulator lot : lots) {
+				readCars(in, cars);
+				while (!cars.isEmpty()) {
+					lot.scheduleArrival(cars.dequeue());
+				}
+			}
+		}
+
+		for (Simulator lot : lots) {
+			lot.finish();
+			int[] results = Campus.results(lot, 0);
+			for (int r = 0; r < results.length - 1; r++) {
+				out.writeInt(results[r]);
+			}
+		}
+		out.flush();
+	}
+
+	public static void main(String args[]) throws Exception {
+
+		if (args.length < 2) {
+			System.out.println("Usage: java CampusWorker <coordinator host> <coordinator port>");
+			return;
+		}
+
+		try (Socket socket = new Socket(args[0], Integer.parseInt(args[1]))) {
+			socket.setTcpNoDelay(true);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			serve(in, out);
+		}
+	}
+}
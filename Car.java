@@ -1,3 +1,7 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 /**
  * @author Mehrdad Sabetzadeh, University of Ottawa
  * 
@@ -7,16 +11,35 @@
  */
 public class Car {
 
+	/**
+	 * The characters allowed in plates that can be encoded as an int
+	 */
+	public static final char[] PLATE_CHARACTERS = { 'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M',
+			'N', 'O', 'P', 'Q', 'R', 'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z', '0', '1', '2', '3', '4', '5', '6', '7',
+			'8', '9' };
+
+	/**
+	 * The longest plate that can be encoded as an int
+	 */
+	public static final int MAX_ENCODED_PLATE_LENGTH = 5;
+
 	/**
 	 * Instance variable for storing the type of the car
 	 */
 	private CarType type;
 
 	/**
-	 * Instance variable for storing the car plate number
+	 * Instance variable for storing the car plate number; for cars created from an
+	 * encoded plate, it is only decoded when first needed
 	 */
 	private String plateNum;
 
+	/**
+	 * Instance variable for storing the car plate number encoded by encodePlate,
+	 * or -1 if the plate cannot be encoded
+	 */
+	private int plateCode;
+
 	/**
 	 * @return the type of this car
 	 */
@@ -34,12 +57,23 @@ public class Car {
 	}
 
 	/**
-	 * @return the plate number
+	 * @return the plate number, null if the car has none
 	 */
 	public String getPlateNum() {
+		if (plateNum == null && plateCode >= 0) {
+			plateNum = decodePlate(plateCode);
+		}
 		return plateNum;
 	}
 
+	/**
+	 * @return the plate number encoded by encodePlate, or -1 if the plate cannot be
+	 *         encoded
+	 */
+	public int getPlateCode() {
+		return plateCode;
+	}
+
 	/**
 	 * Sets the car plate number
 	 * 
@@ -47,6 +81,7 @@ public class Car {
 	 */
 	public void setPlateNum(String plateNum) {
 		this.plateNum = plateNum;
+		this.plateCode = encodePlate(plateNum);
 	}
 
 	/**
@@ -58,12 +93,112 @@ public class Car {
 	public Car(CarType type, String plateNum) {
 		this.type = type;
 		this.plateNum = plateNum;
+		this.plateCode = encodePlate(plateNum);
+	}
+
+	/**
+	 * Constructor for Car, from an encoded plate number. The plate is only turned
+	 * into a String when it is first needed.
+	 * 
+	 * @param type      is the type of the car
+	 * @param plateCode is the car plate number, as returned by encodePlate
+	 */
+	public Car(CarType type, int plateCode) {
+		if (plateCode < 0) {
+			throw new IllegalArgumentException("Invalid plate code: " + plateCode);
+		}
+		this.type = type;
+		this.plateCode = plateCode;
+	}
+
+	/**
+	 * Encodes a plate number made of at most MAX_ENCODED_PLATE_LENGTH
+	 * PLATE_CHARACTERS as a non-negative int: the plate is read as a base-36
+	 * number and its length is kept in the lowest four bits.
+	 * 
+	 * @param plateNum is the car plate number
+	 * @return the encoded plate number, or -1 if the plate cannot be encoded
+	 */
+	public static int encodePlate(String plateNum) {
+		if (plateNum == null || plateNum.length() > MAX_ENCODED_PLATE_LENGTH) {
+			return -1;
+		}
+		int value = 0;
+		for (int k = 0; k < plateNum.length(); k++) {
+			int digit = digitOf(plateNum.charAt(k));
+			if (digit < 0) {
+				return -1;
+			}
+			value = value * PLATE_CHARACTERS.length + digit;
+		}
+		return (value << 4) | plateNum.length();
+	}
+
+	/**
+	 * @param plateCode is an encoded plate number, as returned by encodePlate
+	 * @return the plate number
+	 */
+	public static String decodePlate(int plateCode) {
+		int length = plateCode & 0xF;
+		int value = plateCode >>> 4;
+		char[] chars = new char[length];
+		for (int k = length - 1; k >= 0; k--) {
+			chars[k] = PLATE_CHARACTERS[value % PLATE_CHARACTERS.length];
+			value /= PLATE_CHARACTERS.length;
+		}
+		return new String(chars);
+	}
+
+	private static int digitOf(char ch) {
+		if (ch >= 'A' && ch <= 'Z')
+			return ch - 'A';
+		if (ch >= '0' && ch <= '9')
+			return 26 + ch - '0';
+		return -1;
+	}
+
+	/**
+	 * Writes the type and the plate number of the car
+	 * 
+	 * @param out is the stream written to
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void write(DataOutputStream out) throws IOException {
+		out.writeByte(type.ordinal());
+		out.writeInt(plateCode);
+		if (plateCode < 0) {
+			// a plate that cannot be encoded, or none
+			out.writeBoolean(plateNum != null);
+			if (plateNum != null) {
+				out.writeUTF(plateNum);
+			}
+		}
+	}
+
+	/**
+	 * Reads a car written by write
+	 * 
+	 * @param in is the stream read from
+	 * @return the car
+	 * @throws IOException if the stream cannot be read or holds an invalid type
+	 */
+	public static Car read(DataInputStream in) throws IOException {
+		int ordinal = in.readByte();
+		CarType[] types = CarType.values();
+		if (ordinal < 0 || ordinal >= types.length) {
+			throw new IOException("Invalid car type: " + ordinal);
+		}
+		int plateCode = in.readInt();
+		if (plateCode >= 0) {
+			return new Car(types[ordinal], plateCode);
+		}
+		return new Car(types[ordinal], in.readBoolean() ? in.readUTF() : null);
 	}
 
 	/**
 	 * Returns a string representation of the car
 	 */
 	public String toString() {
-		return Util.getLabelByCarType(type) + '(' + plateNum + ')';
+		return Util.getLabelByCarType(type) + '(' + getPlateNum() + ')';
 	}
 }
\ No newline at end of file
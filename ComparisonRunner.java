@@ -0,0 +1,71 @@
+/**
+ * Compares the admission policies or the allocation strategies on the same lot,
+ * arrival rates and seed: for each rate, replications are run under every
+ * AdmissionPolicy or with every AllocationStrategy.Kind, the other being held
+ * fixed, and their throughput, utilisation, queue lengths and wait times are
+ * printed side by side.
+ */
+public class ComparisonRunner {
+
+	/**
+	 * Runs the comparison
+	 *
+	 * @param args what is compared ("policies" or "strategies"), the lot-design
+	 *             filename, the hourly rates of arrival (as for SweepRunner), the
+	 *             number of replications, and optionally the simulation mode, the
+	 *             seed and the allocation strategy (when comparing policies) or
+	 *             admission policy (when comparing strategies) held fixed
+	 * @throws Exception
+	 */
+	public static void main(String args[]) throws Exception {
+
+		if (args.length < 4 || !(args[0].equalsIgnoreCase("policies") || args[0].equalsIgnoreCase("strategies"))) {
+			System.out.println(
+					"Usage: java ComparisonRunner <policies|strategies> <lot-design filename> <hourly rates of arrival> <replications> [mode] [seed] [strategy|policy]");
+			System.out.println("Example: java ComparisonRunner policies parking.inf 8:16:2 50 NEXT_EVENT 42 FIRST_FIT");
+			System.out.println("Example: java ComparisonRunner strategies parking.inf 8:16:2 50 NEXT_EVENT 42 FIFO");
+			return;
+		}
+
+		boolean comparingPolicies = args[0].equalsIgnoreCase("policies");
+		ParkingLot design = new ParkingLot(args[1]);
+		int[] rates = SweepRunner.parseRates(args[2]);
+		int replications = Integer.parseInt(args[3]);
+		SimulationMode mode = (args.length > 4) ? SimulationMode.valueOf(args[4].toUpperCase())
+				: SimulationMode.NEXT_EVENT;
+		long seed = (args.length > 5) ? Long.parseLong(args[5]) : System.nanoTime();
+		AdmissionPolicy policy = AdmissionPolicy.FIFO;
+		if (args.length > 6) {
+			if (comparingPolicies) {
+				design.setAllocationStrategy(AllocationStrategy.Kind.valueOf(args[6].toUpperCase()));
+			} else {
+				policy = AdmissionPolicy.valueOf(args[6].toUpperCase());
+			}
+		}
+		Enum<?>[] variants = comparingPolicies ? AdmissionPolicy.values() : AllocationStrategy.Kind.values();
+
+		System.out.println("seed: " + seed);
+		System.out.println(String.format("%5s %-17s %20s %20s %20s %20s %20s", "rate",
+				comparingPolicies ? "policy" : "strategy", "throughput (cars/h)", "utilisation (%)",
+				"final queue length", "mean queue length", "mean wait time (s)"));
+
+		for (int rate : rates) {
+			for (Enum<?> variant : variants) {
+				if (comparingPolicies) {
+					policy = (AdmissionPolicy) variant;
+				} else {
+					design.setAllocationStrategy((AllocationStrategy.Kind) variant);
+				}
+				ReplicationRunner.Summary summary = ReplicationRunner.run(design, rate, Simulator.SIMULATION_DURATION,
+						mode, policy, replications, seed, Runtime.getRuntime().availableProcessors());
+				SummaryStatistics occupancy = summary.getMeanOccupancy();
+				double percent = 100.0 / design.getTotalCapacity();
+				System.out.println(String.format("%5d %-17s %20s %20s %20s %20s %20s", rate, variant,
+						summary.getThroughput(),
+						String.format("%.2f +/- %.2f", occupancy.getMean() * percent,
+								occupancy.getHalfWidth95() * percent),
+						summary.getQueueLength(), summary.getMeanQueueLength(), summary.getMeanWaitTime()));
+			}
+		}
+	}
+}
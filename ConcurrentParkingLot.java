@@ -0,0 +1,348 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A parking lot that can be used from several threads at once, e.g. one per
+ * entry gate.
+ * 
+ * The rows of the lot are split into stripes. Each stripe has its own lock and
+ * its own free-spot indexes, so claiming or freeing a spot only locks the
+ * stripe that holds it, and gates working in different stripes do not block
+ * each other. A gate looking for a spot starts at its own stripe and moves on
+ * to the next ones if that stripe has no suitable free spot. The spot found is
+ * the first fit within the stripe, not necessarily within the whole lot.
+ * 
+ * Reading a spot (getSpotAt) never locks.
+ */
+public class ConcurrentParkingLot {
+
+	private static final CarType[] CAR_TYPES = CarType.values();
+
+	/**
+	 * A group of consecutive rows sharing a lock
+	 */
+	private static class Stripe {
+		private final ReentrantLock lock = new ReentrantLock();
+
+		/**
+		 * Free positions per spot type, relative to firstPosition
+		 */
+		private final FreeSpotIndex[] freeSpots = new FreeSpotIndex[CAR_TYPES.length];
+
+		private final int firstPosition;
+
+		/**
+		 * Number of free spots in the stripe, readable without the lock
+		 */
+		private volatile int freeCount;
+
+		private Stripe(int firstPosition, int size) {
+			this.firstPosition = firstPosition;
+			for (int t = 0; t < freeSpots.length; t++) {
+				freeSpots[t] = new FreeSpotIndex(size);
+			}
+		}
+	}
+
+	private final int numRows;
+	private final int numSpotsPerRow;
+	private final int rowsPerStripe;
+
+	/**
+	 * The spot type of every position i * numSpotsPerRow + j
+	 */
+	private final CarType[] lotDesign;
+
+	/**
+	 * The occupancy of every position; written under the lock of the stripe
+	 * holding the position, read without locking
+	 */
+	private final AtomicReferenceArray<Spot> occupancy;
+
+	private final Stripe[] stripes;
+
+	private final LongAdder occupancyCount = new LongAdder();
+
+	private final int totalCapacity;
+
+	/**
+	 * Constructs an empty concurrent lot with the design of another lot
+	 * 
+	 * @param design         is the lot whose design is copied (its occupancy is
+	 *                       ignored)
+	 * @param numberOfStripes is the number of lock stripes, at most the number of
+	 *                       rows
+	 */
+	public ConcurrentParkingLot(ParkingLot design, int numberOfStripes) {
+		numRows = design.getNumRows();
+		numSpotsPerRow = design.getNumSpotsPerRow();
+		numberOfStripes = Math.max(1, Math.min(numberOfStripes, numRows));
+		rowsPerStripe = (numRows + numberOfStripes - 1) / numberOfStripes;
+
+		lotDesign = new CarType[numRows * numSpotsPerRow];
+		occupancy = new AtomicReferenceArray<Spot>(lotDesign.length);
+		stripes = new Stripe[(numRows + rowsPerStripe - 1) / rowsPerStripe];
+
+		int capacity = 0;
+		for (int s = 0; s < stripes.length; s++) {
+			int firstRow = s * rowsPerStripe;
+			int rows = Math.min(rowsPerStripe, numRows - firstRow);
+			Stripe stripe = new Stripe(firstRow * numSpotsPerRow, rows * numSpotsPerRow);
+			int free = 0;
+			for (int i = firstRow; i < firstRow + rows; i++) {
+				for (int j = 0; j < numSpotsPerRow; j++) {
+					int position = i * numSpotsPerRow + j;
+					lotDesign[position] = design.getSpotTypeAt(i, j);
+					if (lotDesign[position] != CarType.NA) {
+						stripe.freeSpots[lotDesign[position].ordinal()].add(position - stripe.firstPosition);
+						free++;
+					}
+				}
+			}
+			stripe.freeCount = free;
+			capacity += free;
+			stripes[s] = stripe;
+		}
+		totalCapacity = capacity;
+	}
+
+	/**
+	 * Constructs an empty concurrent lot with the design of another lot, with
+	 * enough stripes for the available processors
+	 * 
+	 * @param design is the lot whose design is copied
+	 */
+	public ConcurrentParkingLot(ParkingLot design) {
+		this(design, 4 * Runtime.getRuntime().availableProcessors());
+	}
+
+	public int getNumRows() {
+		return numRows;
+	}
+
+	public int getNumSpotsPerRow() {
+		return numSpotsPerRow;
+	}
+
+	/**
+	 * Parks a car (c) at a given location (i, j), if it is free and suitable
+	 * 
+	 * @param i         is the parking row index
+	 * @param j         is the index of the spot within row i
+	 * @param c         is the car to be parked
+	 * @param timestamp is the (simulated) time when the car gets parked in the lot
+	 * @return true if the car was parked, false if (i, j) is out of range, taken
+	 *         or not suitable for c
+	 */
+	public boolean park(int i, int j, Car c, int timestamp) {
+		if (i < 0 || j < 0 || i >= numRows || j >= numSpotsPerRow) {
+			return false;
+		}
+		int position = i * numSpotsPerRow + j;
+		Stripe stripe = stripes[i / rowsPerStripe];
+		stripe.lock.lock();
+		try {
+			if (occupancy.get(position) != null || !ParkingLot.fits(c.getType(), lotDesign[position])) {
+				return false;
+			}
+			claim(stripe, position, c, timestamp);
+			return true;
+		} finally {
+			stripe.lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the car parked at a given location (i, j)
+	 * 
+	 * @param i is the parking row index
+	 * @param j is the index of the spot within row i
+	 * @return the spot removed, or null when (i, j) is out of range or free
+	 */
+	public Spot remove(int i, int j) {
+		if (i < 0 || j < 0 || i >= numRows || j >= numSpotsPerRow) {
+			return null;
+		}
+		int position = i * numSpotsPerRow + j;
+		Stripe stripe = stripes[i / rowsPerStripe];
+		stripe.lock.lock();
+		try {
+			Spot s = occupancy.get(position);
+			if (s != null) {
+				occupancy.set(position, null);
+				stripe.freeSpots[lotDesign[position].ordinal()].add(position - stripe.firstPosition);
+				stripe.freeCount++;
+				occupancyCount.decrement();
+			}
+			return s;
+		} finally {
+			stripe.lock.unlock();
+		}
+	}
+
+	/**
+	 * @param i is the parking row index
+	 * @param j is the index of the spot within row i
+	 * @return the spot at (i, j), or null if it is free or out of range
+	 */
+	public Spot getSpotAt(int i, int j) {
+		if (i < 0 || j < 0 || i >= numRows || j >= numSpotsPerRow) {
+			return null;
+		}
+		return occupancy.get(i * numSpotsPerRow + j);
+	}
+
+	/**
+	 * Attempts to park a car anywhere in the lot, starting with the stripe of the
+	 * calling thread
+	 * 
+	 * @param c         is the car to be parked
+	 * @param timestamp is the simulation time at which parking is attempted
+	 * @return true if c was parked, false if no suitable spot is free
+	 */
+	public boolean attemptParking(Car c, int timestamp) {
+		return attemptParkingAt(c, timestamp) >= 0;
+	}
+
+	/**
+	 * Same as attemptParking, but reports where the car was parked
+	 * 
+	 * @param c         is the car to be parked
+	 * @param timestamp is the simulation time at which parking is attempted
+	 * @return the position i * getNumSpotsPerRow() + j where c was parked, or -1
+	 */
+	public int attemptParkingAt(Car c, int timestamp) {
+		int start = (int) (Thread.currentThread().getId() % stripes.length);
+		for (int k = 0; k < stripes.length; k++) {
+			Stripe stripe = stripes[(start + k) % stripes.length];
+			if (stripe.freeCount == 0) {
+				continue;
+			}
+			stripe.lock.lock();
+			try {
+				int position = firstFit(stripe, c.getType());
+				if (position >= 0) {
+					claim(stripe, position, c, timestamp);
+					return position;
+				}
+			} finally {
+				stripe.lock.unlock();
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the total number of parkable spots
+	 */
+	public int getTotalCapacity() {
+		return totalCapacity;
+	}
+
+	/**
+	 * @return the number of parked cars; exact when no other thread is parking or
+	 *         removing cars
+	 */
+	public int getTotalOccupancy() {
+		return occupancyCount.intValue();
+	}
+
+	/**
+	 * Must be called with the stripe lock held
+	 */
+	private int firstFit(Stripe stripe, CarType carType) {
+		int best = -1;
+		for (CarType spotType : CAR_TYPES) {
+			if (ParkingLot.fits(carType, spotType)) {
+				int candidate = stripe.freeSpots[spotType.ordinal()].first();
+				if (candidate >= 0 && (best < 0 || candidate < best)) {
+					best = candidate;
+				}
+			}
+		}
+		return best < 0 ? -1 : stripe.firstPosition + best;
+	}
+
+	/**
+	 * Must be called with the stripe lock held
+	 */
+	private void claim(Stripe stripe, int position, Car c, int timestamp) {
+		occupancy.set(position, new Spot(c, timestamp));
+		stripe.freeSpots[lotDesign[position].ordinal()].remove(position - stripe.firstPosition);
+		stripe.freeCount--;
+		occupancyCount.increment();
+	}
+
+	/**
+	 * Stress test and throughput benchmark. Gate threads repeatedly park random
+	 * cars and remove them again; every claimed spot is checked against a shadow
+	 * ownership table, so two cars ever holding the same spot is reported. The run
+	 * is repeated with 1, 2, 4, ... threads up to the given maximum.
+	 * 
+	 * @param args the lot-design filename, the maximum number of threads and the
+	 *             duration of each run in milliseconds
+	 * @throws Exception
+	 */
+	public static void main(String args[]) throws Exception {
+
+		if (args.length < 1) {
+			System.out.println("Usage: java ConcurrentParkingLot <lot-design filename> [max threads] [ms per run]");
+			return;
+		}
+
+		ParkingLot design = new ParkingLot(args[0]);
+		int maxThreads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		long duration = (args.length > 2) ? Long.parseLong(args[2]) : 1000;
+
+		System.out.println("Capacity: " + design.getTotalCapacity() + ", processors: "
+				+ Runtime.getRuntime().availableProcessors());
+
+		for (int threads = 1; threads <= maxThreads; threads *= 2) {
+			final ConcurrentParkingLot lot = new ConcurrentParkingLot(design);
+			final AtomicIntegerArray owners = new AtomicIntegerArray(lot.numRows * lot.numSpotsPerRow);
+			final AtomicLong operations = new AtomicLong();
+			final AtomicLong violations = new AtomicLong();
+			final long deadline = System.nanoTime() + duration * 1000000L;
+
+			Thread[] gates = new Thread[threads];
+			for (int g = 0; g < threads; g++) {
+				final int gate = g + 1;
+				gates[g] = new Thread(() -> {
+					long done = 0;
+					int[] held = new int[Math.max(1, lot.getTotalCapacity())];
+					int count = 0;
+					SplittableRandom random = new SplittableRandom(gate);
+					while (System.nanoTime() < deadline) {
+						if (count < held.length && (count == 0 || random.nextBoolean())) {
+							Car car = new Car(CAR_TYPES[random.nextInt(4)], random.nextInt(1 << 20) << 4 | 4);
+							int position = lot.attemptParkingAt(car, 0);
+							if (position >= 0) {
+								if (owners.getAndSet(position, gate) != 0) {
+									violations.incrementAndGet();
+								}
+								held[count++] = position;
+							}
+						} else {
+							int position = held[--count];
+							owners.set(position, 0);
+							lot.remove(position / lot.numSpotsPerRow, position % lot.numSpotsPerRow);
+						}
+						done++;
+					}
+					operations.addAndGet(done);
+				});
+			}
+			for (Thread gate : gates)
+				gate.start();
+			for (Thread gate : gates)
+				gate.join();
+
+			System.out.println(threads + " gate thread(s): " + (operations.get() * 1000 / duration) + " ops/s, "
+					+ violations.get() + " double claims");
+		}
+	}
+}
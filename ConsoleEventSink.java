@@ -0,0 +1,21 @@
+/**
+ * SimulationEventSink printing ENTERED and EXITED events to the standard output
+ * as soon as they are published. This is the default sink of Simulator.
+ */
+public class ConsoleEventSink implements SimulationEventSink {
+
+	public void publish(EventKind kind, Car car, int clock, int occupancy, int row, int spot) {
+		if (kind == EventKind.VACATED) {
+			return;
+		}
+		System.out.println(car + " " + kind + " at timestep " + clock + "; occupancy is a " + occupancy);
+	}
+
+	public void flush() {
+		System.out.flush();
+	}
+
+	public void close() {
+		flush();
+	}
+}
@@ -0,0 +1,127 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A min-priority queue of scheduled departures. Each entry pairs a departure
+ * time with the position (i * numSpotsPerRow + j) of the spot to free, packed
+ * into a single long so that entries are ordered by time first and by position
+ * second. The entries live in a growable binary heap of primitive longs; no
+ * object is allocated per entry.
+ */
+public class DepartureQueue {
+
+	private long[] heap;
+	private int size;
+
+	public DepartureQueue() {
+		heap = new long[64];
+		size = 0;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Schedules a departure
+	 * 
+	 * @param time     is the (simulated) time of the departure
+	 * @param position is the position of the spot to free
+	 */
+	public void add(int time, int position) {
+		if (time < 0 || position < 0) {
+			throw new IllegalArgumentException("Departure time and position must be non-negative");
+		}
+		if (size == heap.length) {
+			heap = Arrays.copyOf(heap, size * 2);
+		}
+		long key = ((long) time << 32) | position;
+		int k = size++;
+		while (k > 0) {
+			int parent = (k - 1) >>> 1;
+			if (heap[parent] <= key) {
+				break;
+			}
+			heap[k] = heap[parent];
+			k = parent;
+		}
+		heap[k] = key;
+	}
+
+	/**
+	 * @return the time of the earliest departure; the queue must not be empty
+	 */
+	public int peekTime() {
+		if (isEmpty()) {
+			throw new IllegalStateException("peekTime method called on an empty queue");
+		}
+		return (int) (heap[0] >>> 32);
+	}
+
+	/**
+	 * Removes the earliest departure
+	 * 
+	 * @return the position of the spot to free
+	 */
+	public int poll() {
+		if (isEmpty()) {
+			throw new IllegalStateException("poll method called on an empty queue");
+		}
+		int position = (int) heap[0];
+		long last = heap[--size];
+		int k = 0;
+		int half = size >>> 1;
+		while (k < half) {
+			int child = 2 * k + 1;
+			if (child + 1 < size && heap[child + 1] < heap[child]) {
+				child++;
+			}
+			if (last <= heap[child]) {
+				break;
+			}
+			heap[k] = heap[child];
+			k = child;
+		}
+		heap[k] = last;
+		return position;
+	}
+
+	/**
+	 * Writes the scheduled departures, in heap order
+	 * 
+	 * @param out is the stream written to
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void write(DataOutputStream out) throws IOException {
+		out.writeInt(size);
+		for (int k = 0; k < size; k++) {
+			out.writeLong(heap[k]);
+		}
+	}
+
+	/**
+	 * Reads departures written by write; the heap is restored as is
+	 * 
+	 * @param in is the stream read from
+	 * @return the queue
+	 * @throws IOException if the stream cannot be read
+	 */
+	public static DepartureQueue read(DataInputStream in) throws IOException {
+		DepartureQueue queue = new DepartureQueue();
+		int size = in.readInt();
+		if (size > queue.heap.length) {
+			queue.heap = new long[size];
+		}
+		for (int k = 0; k < size; k++) {
+			queue.heap[k] = in.readLong();
+		}
+		queue.size = size;
+		return queue;
+	}
+}
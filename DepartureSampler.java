@@ -0,0 +1,73 @@
+/**
+ * Samples how long a car stays parked, once, at the moment it parks.
+ * 
+ * In the time-stepped simulation a parked car is checked every second: after d
+ * seconds it leaves with probability pdf(d), and it is forced out once d
+ * reaches the maximum parking duration. This class precomputes the cumulative
+ * distribution of the duration that process produces, so a single draw gives a
+ * departure time with exactly the same distribution as the per-second checks.
+ */
+public class DepartureSampler {
+
+	/**
+	 * cdf[d] is the probability that a car has left after at most d seconds
+	 */
+	private double[] cdf;
+
+	/**
+	 * The maximum parking duration
+	 */
+	private int maxDuration;
+
+	/**
+	 * @param departurePDF is the per-second departure probability, as a function
+	 *                     of the time the car has been parked
+	 * @param maxDuration  is the duration after which a car is forced out
+	 */
+	public DepartureSampler(TriangularDistribution departurePDF, int maxDuration) {
+		this.maxDuration = maxDuration;
+		cdf = new double[maxDuration + 1];
+
+		double stillParked = 1.0;
+		for (int d = 1; d < maxDuration; d++) {
+			double p = departurePDF.density(d);
+			stillParked *= 1.0 - p;
+			cdf[d] = 1.0 - stillParked;
+		}
+		cdf[maxDuration] = 1.0;
+	}
+
+	/**
+	 * Samples a parking duration, given that the car has not left during the
+	 * first waited seconds
+	 * 
+	 * @param waited is the number of seconds already elapsed since the car's
+	 *               timestamp
+	 * @param source is the source of randomness
+	 * @return a duration strictly greater than waited; cars that have already
+	 *         reached the maximum duration get waited + 1
+	 */
+	public int sample(int waited, java.util.random.RandomGenerator source) {
+		if (waited >= maxDuration) {
+			return waited + 1;
+		}
+		if (waited < 0) {
+			waited = 0;
+		}
+
+		double u = cdf[waited] + RandomGenerator.nextUniform(source) * (1.0 - cdf[waited]);
+
+		// smallest d in (waited, maxDuration] with cdf[d] >= u
+		int low = waited + 1;
+		int high = maxDuration;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (cdf[mid] >= u) {
+				high = mid;
+			} else {
+				low = mid + 1;
+			}
+		}
+		return low;
+	}
+}
@@ -0,0 +1,269 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * Simulates a campus (see Campus) with its lots split across several worker
+ * processes on this machine. The coordinator starts the CampusWorker processes,
+ * which connect back to it over a localhost socket.
+ * 
+ * Protocol (DataInput/DataOutput streams):
+ * <ol>
+ * <li>The coordinator sends the campus (the designs, rate, steps, mode, maximum
+ * wait, travel delay and seed) and the lots of the worker; lot k goes to worker
+ * k % workers.</li>
+ * <li>For every window of travelDelay seconds, each worker simulates its lots to
+ * the end of the window and sends the cars routed away from them. Once it has
+ * the cars of every worker, the coordinator routes them as Campus does and
+ * sends each worker the cars routed to its lots, which cannot arrive before the
+ * next window. Receiving them is the barrier that starts the next window.</li>
+ * <li>At the end, each worker sends the results of its lots.</li>
+ * </ol>
+ * 
+ * The lots use the same streams as a single-process Campus with the same seed,
+ * and cars are routed in the same order, so the results are the same; the
+ * verify option checks it.
+ */
+public class DistributedCampus {
+
+	/**
+	 * Milliseconds to wait for the workers to connect
+	 */
+	private static final int CONNECT_TIMEOUT = 60000;
+
+	private String[] names;
+	private ParkingLot[] designs;
+	private int perHourArrivalRate;
+	private int steps;
+	private SimulationMode mode;
+	private int maxWait;
+	private int travelDelay;
+	private long seed;
+
+	/**
+	 * Results of the lots, routed cars and cars in transit at the end
+	 */
+	private int[][] results;
+	private int leftCampus;
+	private int inTransit;
+
+	/**
+	 * Same parameters as the Campus constructor
+	 */
+	public DistributedCampus(String[] names, ParkingLot[] designs, int perHourArrivalRate, int steps,
+			SimulationMode mode, int maxWait, int travelDelay, long seed) {
+		if (maxWait < 0 || travelDelay < 1) {
+			throw new IllegalArgumentException("Invalid overflow: max wait " + maxWait + ", travel delay " + travelDelay);
+		}
+		this.names = names.clone();
+		this.designs = designs.clone();
+		this.perHourArrivalRate = perHourArrivalRate;
+		this.steps = steps;
+		this.mode = mode;
+		this.maxWait = maxWait;
+		this.travelDelay = travelDelay;
+		this.seed = seed;
+	}
+
+	/**
+	 * Runs the simulation of the campus
+	 * 
+	 * @param workers is the number of worker processes
+	 * @throws Exception if a worker cannot be started or fails
+	 */
+	public void run(int workers) throws Exception {
+		int numLots = designs.length;
+		workers = Math.max(1, Math.min(workers, numLots));
+
+		Process[] processes = new Process[workers];
+		Socket[] sockets = new Socket[workers];
+		try (ServerSocket server = new ServerSocket(0, workers, InetAddress.getLoopbackAddress())) {
+			server.setSoTimeout(CONNECT_TIMEOUT);
+
+			String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+			for (int w = 0; w < workers; w++) {
+				processes[w] = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), "CampusWorker",
+						InetAddress.getLoopbackAddress().getHostAddress(), Integer.toString(server.getLocalPort()))
+						.inheritIO().start();
+			}
+
+			DataInputStream[] in = new DataInputStream[workers];
+			DataOutputStream[] out = new DataOutputStream[workers];
+			for (int w = 0; w < workers; w++) {
+				sockets[w] = server.accept();
+				sockets[w].setTcpNoDelay(true);
+				in[w] = new DataInputStream(new BufferedInputStream(sockets[w].getInputStream()));
+				out[w] = new DataOutputStream(new BufferedOutputStream(sockets[w].getOutputStream()));
+				sendCampus(out[w], w, workers);
+			}
+
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			Queue<Spot>[] outboxes = new Queue[numLots];
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			Queue<Spot>[] inboxes = new Queue[numLots];
+			for (int k = 0; k < numLots; k++) {
+				outboxes[k] = new ArrayQueue<Spot>();
+				inboxes[k] = new ArrayQueue<Spot>();
+			}
+			int[] routedIn = new int[numLots];
+			leftCampus = 0;
+			inTransit = 0;
+
+			for (int window = 0; window < steps; window += travelDelay) {
+				for (int w = 0; w < workers; w++) {
+					for (int k = w; k < numLots; k += workers) {
+						CampusWorker.readCars(in[w], outboxes[k]);
+					}
+				}
+
+				// same routing, in the same order, as Campus
+				for (int k = 0; k < numLots; k++) {
+					while (!outboxes[k].isEmpty()) {
+						RoutedSpot s = (RoutedSpot) outboxes[k].dequeue();
+						int next = Campus.destination(s, k, numLots, steps);
+						if (next == Campus.LEFT_CAMPUS) {
+							leftCampus++;
+						} else if (next == Campus.IN_TRANSIT) {
+							inTransit++;
+						} else {
+							inboxes[next].enqueue(s);
+							routedIn[next]++;
+						}
+					}
+				}
+
+				for (int w = 0; w < workers; w++) {
+					for (int k = w; k < numLots; k += workers) {
+						CampusWorker.writeCars(out[w], inboxes[k]);
+					}
+					out[w].flush();
+				}
+			}
+
+			results = new int[numLots][];
+			for (int w = 0; w < workers; w++) {
+				for (int k = w; k < numLots; k += workers) {
+					results[k] = new int[6];
+					for (int r = 0; r < 5; r++) {
+						results[k][r] = in[w].readInt();
+					}
+					results[k][5] = routedIn[k];
+				}
+			}
+
+			for (Process process : processes) {
+				process.waitFor();
+			}
+		} finally {
+			for (Socket socket : sockets) {
+				if (socket != null) {
+					socket.close();
+				}
+			}
+			for (Process process : processes) {
+				if (process != null && process.isAlive()) {
+					process.destroyForcibly();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sends the campus and the lots of a worker
+	 */
+	private void sendCampus(DataOutputStream out, int worker, int workers) throws Exception {
+		out.writeInt(designs.length);
+		for (ParkingLot design : designs) {
+			LotDesign lot = design.getDesign();
+			out.writeInt(lot.getNumRows());
+			out.writeInt(lot.getNumSpotsPerRow());
+			out.write(lot.getSpotTypes());
+			out.writeByte(design.getAllocationStrategy().ordinal());
+		}
+		out.writeInt(perHourArrivalRate);
+		out.writeInt(steps);
+		out.writeByte(mode.ordinal());
+		out.writeInt(maxWait);
+		out.writeInt(travelDelay);
+		out.writeLong(seed);
+
+		out.writeInt((designs.length - worker + workers - 1) / workers);
+		for (int k = worker; k < designs.length; k += workers) {
+			out.writeInt(k);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Returns a table of the results of the lots, one line per lot, in the same
+	 * format as Campus
+	 */
+	public String toString() {
+		return Campus.format(names, results, leftCampus, inTransit);
+	}
+
+	/**
+	 * Simulates a campus for 24h in several processes and prints the results of
+	 * its lots
+	 * 
+	 * @param args optionally --verify (to check the results against a
+	 *             single-process run), then the number of worker processes and
+	 *             the same arguments as Campus
+	 * @throws Exception
+	 */
+	public static void main(String args[]) throws Exception {
+
+		boolean verify = args.length > 0 && args[0].equals("--verify");
+		int first = verify ? 1 : 0;
+
+		if (args.length - first < 7) {
+			System.out.println(
+					"Usage: java DistributedCampus [--verify] <workers> <hourly rate of arrival> <max wait (s)> <travel delay (s)> <mode> <seed> <lot-design filename>...");
+			System.out.println(
+					"Example: java DistributedCampus --verify 2 14 900 300 NEXT_EVENT 42 parking.inf parking2.inf parking3.inf");
+			return;
+		}
+
+		int workers = Integer.parseInt(args[first]);
+		int rate = Integer.parseInt(args[first + 1]);
+		int maxWait = Integer.parseInt(args[first + 2]);
+		int travelDelay = Integer.parseInt(args[first + 3]);
+		SimulationMode mode = SimulationMode.valueOf(args[first + 4].toUpperCase());
+		long seed = Long.parseLong(args[first + 5]);
+
+		String[] names = new String[args.length - first - 6];
+		ParkingLot[] designs = new ParkingLot[names.length];
+		for (int k = 0; k < names.length; k++) {
+			names[k] = args[first + 6 + k];
+			designs[k] = new ParkingLot(names[k]);
+		}
+
+		DistributedCampus campus = new DistributedCampus(names, designs, rate, Simulator.SIMULATION_DURATION, mode,
+				maxWait, travelDelay, seed);
+
+		long start = System.currentTimeMillis();
+		campus.run(workers);
+		long end = System.currentTimeMillis();
+
+		System.out.println(campus);
+		System.out.println("Simulation with " + Math.min(workers, names.length) + " worker processes took "
+				+ (end - start) + "ms.");
+
+		if (verify) {
+			Campus single = new Campus(names, designs, rate, Simulator.SIMULATION_DURATION, mode, maxWait,
+					travelDelay, seed);
+			single.run(1);
+			boolean same = single.toString().equals(campus.toString());
+			System.out.println(same ? "Verified: same results as a single-process run."
+					: "MISMATCH with a single-process run:" + System.lineSeparator() + single);
+			if (!same) {
+				System.exit(1);
+			}
+		}
+	}
+}
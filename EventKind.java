@@ -0,0 +1,20 @@
+/**
+ * The kinds of events a Simulator publishes to its SimulationEventSink.
+ */
+public enum EventKind {
+
+	/**
+	 * A car entered the lot
+	 */
+	ENTERED,
+
+	/**
+	 * A car left the lot through the exit (after leaving its spot)
+	 */
+	EXITED,
+
+	/**
+	 * A car left its spot and joined the queue for the exit
+	 */
+	VACATED;
+}
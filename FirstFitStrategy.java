@@ -0,0 +1,58 @@
+/**
+ * Allocates the first compatible spot in row-major order. The free spots of
+ * each type are kept in a FreeSpotIndex in position order, so the first
+ * compatible spot is the lowest of the first free positions of the compatible
+ * types.
+ */
+public class FirstFitStrategy implements AllocationStrategy {
+
+	protected static final CarType[] CAR_TYPES = CarType.values();
+
+	/**
+	 * The spot types (CarType ordinals) of the lot
+	 */
+	protected byte[] lotDesign;
+
+	/**
+	 * Free spot positions, indexed by spot type ordinal
+	 */
+	protected FreeSpotIndex[] freeSpots;
+
+	/**
+	 * @param lotDesign are the spot types (CarType ordinals) of the lot; every
+	 *                  parkable spot starts free
+	 */
+	public FirstFitStrategy(byte[] lotDesign) {
+		this.lotDesign = lotDesign;
+		freeSpots = new FreeSpotIndex[CAR_TYPES.length];
+		for (int t = 0; t < freeSpots.length; t++) {
+			freeSpots[t] = new FreeSpotIndex(lotDesign.length);
+		}
+		for (int position = 0; position < lotDesign.length; position++) {
+			if (lotDesign[position] != CarType.NA.ordinal()) {
+				freeSpots[lotDesign[position]].add(position);
+			}
+		}
+	}
+
+	public int find(CarType carType) {
+		int position = -1;
+		for (CarType spotType : CAR_TYPES) {
+			if (ParkingLot.fits(carType, spotType)) {
+				int candidate = freeSpots[spotType.ordinal()].first();
+				if (candidate >= 0 && (position < 0 || candidate < position)) {
+					position = candidate;
+				}
+			}
+		}
+		return position;
+	}
+
+	public void claim(int position) {
+		freeSpots[lotDesign[position]].remove(position);
+	}
+
+	public void release(int position) {
+		freeSpots[lotDesign[position]].add(position);
+	}
+}
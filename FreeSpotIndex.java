@@ -0,0 +1,97 @@
+/**
+ * A set of free spot positions backed by a two-level bitset. The lower level
+ * holds one bit per position; the upper level holds one bit per non-empty
+ * 64-bit word of the lower level. Finding the lowest free position therefore
+ * only walks the (64 times smaller) upper level, and marking a position free or
+ * taken is constant time. No objects are allocated after construction.
+ */
+public class FreeSpotIndex {
+
+	/**
+	 * One bit per position; a set bit means the position is free
+	 */
+	private long[] words;
+
+	/**
+	 * One bit per entry of words; a set bit means that word is non-zero
+	 */
+	private long[] summary;
+
+	/**
+	 * Number of free positions currently in the index
+	 */
+	private int size;
+
+	/**
+	 * Constructs an empty index able to hold positions 0 to capacity - 1
+	 *
+	 * @param capacity is the number of positions the index can hold
+	 */
+	public FreeSpotIndex(int capacity) {
+		words = new long[(capacity + 63) >>> 6];
+		summary = new long[(words.length + 63) >>> 6];
+	}
+
+	/**
+	 * Marks a position as free
+	 *
+	 * @param position is the position to add
+	 */
+	public void add(int position) {
+		int w = position >>> 6;
+		long bit = 1L << position;
+		if ((words[w] & bit) == 0) {
+			words[w] |= bit;
+			summary[w >>> 6] |= 1L << w;
+			size++;
+		}
+	}
+
+	/**
+	 * Marks a position as taken
+	 *
+	 * @param position is the position to remove
+	 */
+	public void remove(int position) {
+		int w = position >>> 6;
+		long bit = 1L << position;
+		if ((words[w] & bit) != 0) {
+			words[w] &= ~bit;
+			if (words[w] == 0) {
+				summary[w >>> 6] &= ~(1L << w);
+			}
+			size--;
+		}
+	}
+
+	/**
+	 * @param position is the position to check
+	 * @return true if the position is free
+	 */
+	public boolean contains(int position) {
+		return (words[position >>> 6] & (1L << position)) != 0;
+	}
+
+	/**
+	 * @return the lowest free position, or -1 if the index is empty
+	 */
+	public int first() {
+		if (size == 0) {
+			return -1;
+		}
+		for (int s = 0; s < summary.length; s++) {
+			if (summary[s] != 0) {
+				int w = (s << 6) + Long.numberOfTrailingZeros(summary[s]);
+				return (w << 6) + Long.numberOfTrailingZeros(words[w]);
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the number of free positions in the index
+	 */
+	public int size() {
+		return size;
+	}
+}
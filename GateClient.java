@@ -0,0 +1,92 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+
+/**
+ * The connection of one gate controller to a GateServer. Requests are sent one
+ * at a time and each call waits for the answer; a client is used by one thread.
+ */
+public class GateClient implements AutoCloseable {
+
+	private final SocketChannel channel;
+	private final DataInputStream in;
+	private final DataOutputStream out;
+
+	/**
+	 * @param address is the address of the server
+	 * @throws IOException if the server cannot be reached
+	 */
+	public GateClient(SocketAddress address) throws IOException {
+		if (address instanceof UnixDomainSocketAddress) {
+			channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+		} else {
+			channel = SocketChannel.open();
+		}
+		channel.connect(address);
+		if (address instanceof InetSocketAddress) {
+			channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+		}
+		in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+		out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+	}
+
+	/**
+	 * A car arrives at the gate
+	 *
+	 * @param car is the car
+	 * @return the row and spot assigned to the car, or null if it was rejected
+	 * @throws IOException if the server cannot be reached
+	 */
+	public int[] arrive(Car car) throws IOException {
+		out.writeByte(GateServer.ARRIVE);
+		car.write(out);
+		out.flush();
+		int status = in.readByte();
+		int row = in.readInt();
+		int spot = in.readInt();
+		return (status == GateServer.PARKED) ? new int[] { row, spot } : null;
+	}
+
+	/**
+	 * The car parked at (row, spot) leaves through the gate
+	 *
+	 * @param row  is the parking row index
+	 * @param spot is the index of the spot within the row
+	 * @return true if a car left the spot, false if it was free
+	 * @throws IOException if the server cannot be reached
+	 */
+	public boolean exit(int row, int spot) throws IOException {
+		out.writeByte(GateServer.EXIT);
+		out.writeInt(row);
+		out.writeInt(spot);
+		out.flush();
+		int status = in.readByte();
+		in.readInt();
+		in.readInt();
+		return status == GateServer.PARKED;
+	}
+
+	/**
+	 * @return the number of parked cars and the capacity of the lot
+	 * @throws IOException if the server cannot be reached
+	 */
+	public int[] occupancy() throws IOException {
+		out.writeByte(GateServer.OCCUPANCY);
+		out.flush();
+		in.readByte();
+		return new int[] { in.readInt(), in.readInt() };
+	}
+
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,187 @@
+import java.net.SocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load generator for a GateServer: thousands of simulated gates, each with its
+ * own connection and thread, send a closed loop of arrivals and exits as fast as
+ * the server answers them. Every gate remembers where its cars parked and only
+ * lets its own cars exit, so at the end the occupancy reported by the server
+ * must equal the number of cars the gates still hold. Reports the throughput and
+ * the distribution of the round-trip latency of the requests.
+ *
+ * Usage: java GateLoadGenerator <lot-design filename or server address> [gates]
+ * [seconds] [tcp or unix]
+ */
+public class GateLoadGenerator {
+
+	/**
+	 * The types of the cars arriving at the gates (CarType.NA cannot park)
+	 */
+	private static final CarType[] CAR_TYPES = { CarType.ELECTRIC, CarType.SMALL, CarType.REGULAR, CarType.LARGE };
+
+	/**
+	 * Latencies are recorded in microseconds, in 16us buckets up to about 4s; the
+	 * gates share a few histograms rather than one each
+	 */
+	private static final int LATENCY_BITS = 4;
+	private static final int LATENCY_BUCKETS = 1 << 18;
+	private static final int STRIPES = 16;
+
+	/**
+	 * Requests sent in the first second, while connections are still being
+	 * served for the first time and the code is compiled, are not measured
+	 */
+	private static final long WARM_UP = 1000000000L;
+
+	/**
+	 * @param args the lot-design filename to serve in this process (or the
+	 *             address of a running GateServer), the number of gates, the
+	 *             duration in seconds and the transport of the in-process server
+	 * @throws Exception
+	 */
+	public static void main(String args[]) throws Exception {
+
+		if (args.length < 1) {
+			System.out.println(
+					"Usage: java GateLoadGenerator <lot-design filename or server address> [gates] [seconds] [tcp or unix]");
+			System.out.println("Example: java GateLoadGenerator parking.inf 2000 10 unix");
+			System.out.println("Example: java GateLoadGenerator 7070 2000 10");
+			return;
+		}
+
+		int gates = (args.length > 1) ? Integer.parseInt(args[1]) : 1000;
+		long duration = (args.length > 2) ? Long.parseLong(args[2]) * 1000000000L : 10000000000L;
+		String transport = (args.length > 3) ? args[3].toLowerCase() : "tcp";
+
+		GateServer server = null;
+		Path directory = null;
+		SocketAddress address;
+		if (Files.isRegularFile(Paths.get(args[0]))) {
+			ConcurrentParkingLot lot = new ConcurrentParkingLot(new ParkingLot(args[0]));
+			if (transport.equals("unix")) {
+				directory = Files.createTempDirectory("gates");
+				address = java.net.UnixDomainSocketAddress.of(directory.resolve("parking.sock"));
+			} else {
+				address = GateServer.parseAddress("0");
+			}
+			server = new GateServer(lot, address);
+			address = server.getAddress();
+		} else {
+			address = GateServer.parseAddress(args[0]);
+		}
+
+		final Histogram[] latencies = new Histogram[STRIPES];
+		for (int s = 0; s < STRIPES; s++) {
+			latencies[s] = new Histogram(LATENCY_BITS, LATENCY_BUCKETS);
+		}
+		final AtomicLong parked = new AtomicLong();
+		final AtomicLong rejected = new AtomicLong();
+		final AtomicLong exited = new AtomicLong();
+		final AtomicLong held = new AtomicLong();
+		final AtomicLong failed = new AtomicLong();
+
+		final CountDownLatch connected = new CountDownLatch(gates);
+		final CountDownLatch go = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(gates);
+		final long[] window = new long[2];
+		final SocketAddress target = address;
+
+		ThreadFactory threads = GateServer.newGateThreadFactory("load");
+		System.out.println("Gates: " + gates + ", server: " + address + ", processors: "
+				+ Runtime.getRuntime().availableProcessors() + ", gate threads: "
+				+ threads.newThread(() -> {
+				}).getClass().getSimpleName());
+
+		long connecting = System.nanoTime();
+		for (int g = 0; g < gates; g++) {
+			final int gate = g;
+			threads.newThread(() -> {
+				SplittableRandom random = new SplittableRandom(gate);
+				Histogram latency = latencies[gate % STRIPES];
+				int[][] cars = new int[64][];
+				int count = 0;
+				boolean ready = false;
+				try (GateClient client = new GateClient(target)) {
+					ready = true;
+					connected.countDown();
+					go.await();
+					long start = window[0];
+					long end = window[1];
+					long now;
+					while ((now = System.nanoTime()) < end) {
+						if (count < cars.length && (count == 0 || random.nextBoolean())) {
+							Car car = new Car(CAR_TYPES[random.nextInt(CAR_TYPES.length)], random.nextInt(1 << 20) << 4 | 4);
+							int[] spot = client.arrive(car);
+							if (spot != null) {
+								cars[count++] = spot;
+								parked.incrementAndGet();
+							} else {
+								rejected.incrementAndGet();
+							}
+						} else {
+							int[] spot = cars[--count];
+							if (client.exit(spot[0], spot[1])) {
+								exited.incrementAndGet();
+							} else {
+								failed.incrementAndGet(); // the spot was not held by this gate's car
+							}
+						}
+						if (now >= start) {
+							long micros = (System.nanoTime() - now) / 1000;
+							synchronized (latency) {
+								latency.record(micros);
+							}
+						}
+					}
+				} catch (Exception e) {
+					failed.incrementAndGet();
+					if (!ready) {
+						connected.countDown();
+					}
+					System.err.println("Gate " + gate + ": " + e);
+				} finally {
+					held.addAndGet(count);
+					done.countDown();
+				}
+			}).start();
+		}
+
+		connected.await();
+		long ready = System.nanoTime();
+		window[0] = ready + WARM_UP;
+		window[1] = ready + WARM_UP + duration;
+		go.countDown(); // publishes the window to the gates
+		done.await();
+
+		Histogram all = new Histogram(LATENCY_BITS, LATENCY_BUCKETS);
+		for (Histogram stripe : latencies) {
+			all.add(stripe);
+		}
+
+		System.out.println("connected in " + (ready - connecting) / 1000000 + "ms");
+		System.out.println(String.format("requests: %d in %.1fs, %.0f per second", all.getCount(), duration / 1e9,
+				all.getCount() / (duration / 1e9)));
+		System.out.println(String.format("latency (us): mean %.1f, p50 %d, p90 %d, p99 %d, p99.9 %d, max %d",
+				all.getMean(), all.getPercentile(0.50), all.getPercentile(0.90), all.getPercentile(0.99),
+				all.getPercentile(0.999), all.getMax()));
+		System.out.println("parked: " + parked + ", rejected: " + rejected + ", exited: " + exited + ", failed: " + failed);
+
+		try (GateClient client = new GateClient(address)) {
+			int[] occupancy = client.occupancy();
+			System.out.println("occupancy: " + occupancy[0] + " / " + occupancy[1] + ", held by the gates: " + held
+					+ ((server == null) ? "" : (occupancy[0] == held.get()) ? " (consistent)" : " (INCONSISTENT)"));
+		}
+		if (server != null) {
+			server.close();
+		}
+		if (directory != null) {
+			Files.delete(directory);
+		}
+	}
+}
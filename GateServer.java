@@ -0,0 +1,252 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A live parking lot serving gate controllers over a local socket (TCP or
+ * Unix-domain). Each gate connection is served by its own thread, which reads
+ * the gate's requests one at a time and answers each before reading the next.
+ * The lot is a ConcurrentParkingLot, so gates in different stripes of the lot
+ * do not block each other. Timestamps are wall-clock seconds since the server
+ * started.
+ *
+ * Protocol (big-endian). A request is an operation byte followed by its
+ * arguments; every response is a status byte followed by two ints.
+ * <ul>
+ * <li>ARRIVE, car (as written by Car.write): PARKED, row, spot; or REJECTED,
+ * -1, -1 if no suitable spot is free</li>
+ * <li>EXIT, row, spot: PARKED, row, spot if a car left that spot; or REJECTED,
+ * row, spot if it was free</li>
+ * <li>OCCUPANCY: PARKED, number of parked cars, capacity</li>
+ * </ul>
+ *
+ * Usage: java GateServer <lot-design filename> [port or Unix-domain socket path]
+ */
+public class GateServer implements AutoCloseable {
+
+	public static final int ARRIVE = 1;
+	public static final int EXIT = 2;
+	public static final int OCCUPANCY = 3;
+
+	public static final int PARKED = 0;
+	public static final int REJECTED = 1;
+
+	/**
+	 * Stack size of the gate threads when they are platform threads; serving a
+	 * gate needs little stack, and thousands of gates may be connected
+	 */
+	private static final long GATE_STACK_SIZE = 256 * 1024;
+
+	private final ConcurrentParkingLot lot;
+	private final ServerSocketChannel server;
+	private final SocketAddress address;
+	private final ThreadFactory gateThreads = newGateThreadFactory("gate");
+	private final long started = System.nanoTime();
+
+	/**
+	 * Starts serving a lot; the server runs until it is closed
+	 *
+	 * @param lot     is the lot
+	 * @param address is the address to listen on: a TCP address (port 0 for any
+	 *                free port) or a UnixDomainSocketAddress
+	 * @throws IOException if the address cannot be bound
+	 */
+	public GateServer(ConcurrentParkingLot lot, SocketAddress address) throws IOException {
+		this.lot = lot;
+		if (address instanceof UnixDomainSocketAddress) {
+			Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+			server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		} else {
+			server = ServerSocketChannel.open();
+		}
+		server.bind(address, 1024);
+		this.address = server.getLocalAddress();
+
+		Thread acceptor = new Thread(this::accept, "gate-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	/**
+	 * @return the address the server listens on
+	 */
+	public SocketAddress getAddress() {
+		return address;
+	}
+
+	/**
+	 * @return the lot being served
+	 */
+	public ConcurrentParkingLot getLot() {
+		return lot;
+	}
+
+	/**
+	 * Accepts gate connections until the server is closed
+	 */
+	private void accept() {
+		try {
+			while (true) {
+				SocketChannel channel = server.accept();
+				if (channel.getRemoteAddress() instanceof InetSocketAddress) {
+					channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+				}
+				gateThreads.newThread(() -> serve(channel)).start();
+			}
+		} catch (ClosedChannelException e) {
+			// closed
+		} catch (IOException e) {
+			System.err.println("Gate server stopped: " + e);
+		}
+	}
+
+	/**
+	 * Answers the requests of a gate until it disconnects
+	 *
+	 * @param channel is the connection of the gate
+	 */
+	private void serve(SocketChannel channel) {
+		try (SocketChannel gate = channel) {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(gate)));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(gate)));
+			int operation;
+			while ((operation = in.read()) >= 0) {
+				switch (operation) {
+				case ARRIVE: {
+					int position = lot.attemptParkingAt(Car.read(in), now());
+					if (position >= 0) {
+						respond(out, PARKED, position / lot.getNumSpotsPerRow(), position % lot.getNumSpotsPerRow());
+					} else {
+						respond(out, REJECTED, -1, -1);
+					}
+					break;
+				}
+				case EXIT: {
+					int row = in.readInt();
+					int spot = in.readInt();
+					respond(out, (lot.remove(row, spot) != null) ? PARKED : REJECTED, row, spot);
+					break;
+				}
+				case OCCUPANCY:
+					respond(out, PARKED, lot.getTotalOccupancy(), lot.getTotalCapacity());
+					break;
+				default:
+					throw new IOException("Unknown operation: " + operation);
+				}
+				out.flush();
+			}
+		} catch (EOFException e) {
+			// the gate disconnected in the middle of a request
+		} catch (IOException e) {
+			if (server.isOpen()) {
+				System.err.println("Gate connection closed: " + e);
+			}
+		}
+	}
+
+	private static void respond(DataOutputStream out, int status, int a, int b) throws IOException {
+		out.writeByte(status);
+		out.writeInt(a);
+		out.writeInt(b);
+	}
+
+	/**
+	 * @return the number of seconds since the server started
+	 */
+	private int now() {
+		return (int) ((System.nanoTime() - started) / 1000000000L);
+	}
+
+	/**
+	 * Stops accepting gates; connected gates are served until they disconnect
+	 */
+	public void close() throws IOException {
+		server.close();
+		if (address instanceof UnixDomainSocketAddress) {
+			Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+		}
+	}
+
+	/**
+	 * Creates the threads serving or simulating gates: virtual threads when the
+	 * running JDK provides them (Java 21 on), platform threads with a small stack
+	 * otherwise
+	 *
+	 * @param name is the prefix of the thread names
+	 * @return the factory
+	 */
+	static ThreadFactory newGateThreadFactory(String name) {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			builder = Class.forName("java.lang.Thread$Builder").getMethod("name", String.class, long.class)
+					.invoke(builder, name + "-", 0L);
+			return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+		} catch (ReflectiveOperationException | UnsupportedOperationException e) {
+			// no virtual threads (before Java 21, or a preview not enabled)
+		}
+		java.util.concurrent.atomic.AtomicInteger count = new java.util.concurrent.atomic.AtomicInteger();
+		return task -> {
+			Thread thread = new Thread(null, task, name + "-" + count.getAndIncrement(), GATE_STACK_SIZE);
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * Parses an address: a path (containing a /) for a Unix-domain socket, or
+	 * [host:]port for TCP (on the loopback interface by default)
+	 *
+	 * @param text is the address
+	 * @return the address
+	 */
+	static SocketAddress parseAddress(String text) {
+		if (text.contains("/")) {
+			return UnixDomainSocketAddress.of(Path.of(text));
+		}
+		int colon = text.lastIndexOf(':');
+		if (colon < 0) {
+			return new InetSocketAddress(java.net.InetAddress.getLoopbackAddress(), Integer.parseInt(text));
+		}
+		return new InetSocketAddress(text.substring(0, colon), Integer.parseInt(text.substring(colon + 1)));
+	}
+
+	/**
+	 * Serves a lot until the process is stopped
+	 *
+	 * @param args the lot-design filename and the address to listen on
+	 * @throws Exception
+	 */
+	public static void main(String args[]) throws Exception {
+
+		if (args.length < 1) {
+			System.out.println("Usage: java GateServer <lot-design filename> [port or Unix-domain socket path]");
+			System.out.println("Example: java GateServer parking.inf 7070");
+			System.out.println("Example: java GateServer parking.inf /tmp/parking.sock");
+			return;
+		}
+
+		ConcurrentParkingLot lot = new ConcurrentParkingLot(new ParkingLot(args[0]));
+		GateServer server = new GateServer(lot, parseAddress((args.length > 1) ? args[1] : "7070"));
+		System.out.println("Serving " + lot.getTotalCapacity() + " spots on " + server.getAddress());
+
+		while (true) {
+			Thread.sleep(10000);
+			System.out.println("Occupancy: " + lot.getTotalOccupancy() + " / " + lot.getTotalCapacity());
+		}
+	}
+}
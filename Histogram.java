@@ -0,0 +1,261 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A histogram of non-negative integer values with a fixed number of buckets of
+ * equal width (a power of two, so a value's bucket is found with a shift), plus
+ * one overflow bucket for the values beyond the last bucket.
+ * Each value is recorded with a weight, e.g. 1 to count events or the number of
+ * seconds a level was held to weigh it by time. The count, sum, minimum and
+ * maximum are kept exactly; percentiles are resolved to a bucket. Recording
+ * does not allocate.
+ */
+public class Histogram {
+
+	/**
+	 * Buckets are 2^bucketBits wide
+	 */
+	private int bucketBits;
+
+	/**
+	 * Total weight per bucket; the last entry is the overflow bucket
+	 */
+	private long[] counts;
+
+	private long totalWeight;
+	private long weightedSum;
+	private long min = Long.MAX_VALUE;
+	private long max = Long.MIN_VALUE;
+
+	/**
+	 * @param bucketBits is the base-2 logarithm of the width of each bucket
+	 * @param numBuckets is the number of buckets, not counting the overflow
+	 *                   bucket; values from 2^bucketBits * numBuckets on fall in
+	 *                   the overflow bucket
+	 */
+	public Histogram(int bucketBits, int numBuckets) {
+		if (bucketBits < 0 || bucketBits > 62 || numBuckets < 1) {
+			throw new IllegalArgumentException("Invalid histogram: " + numBuckets + " buckets of 2^" + bucketBits);
+		}
+		this.bucketBits = bucketBits;
+		this.counts = new long[numBuckets + 1];
+	}
+
+	/**
+	 * Constructs a histogram with the narrowest buckets such that values up to
+	 * maxValue fit in at most maxBuckets buckets
+	 * 
+	 * @param maxValue   is the largest value expected
+	 * @param maxBuckets is the largest number of buckets to allocate
+	 * @return the histogram
+	 */
+	public static Histogram forRange(long maxValue, int maxBuckets) {
+		int bits = 0;
+		while ((maxValue >>> bits) >= maxBuckets) {
+			bits++;
+		}
+		return new Histogram(bits, (int) (maxValue >>> bits) + 1);
+	}
+
+	/**
+	 * Records a value once
+	 * 
+	 * @param value is the value to record (negative values are recorded as 0)
+	 */
+	public void record(long value) {
+		record(value, 1);
+	}
+
+	/**
+	 * Records a value with a weight
+	 * 
+	 * @param value  is the value to record (negative values are recorded as 0)
+	 * @param weight is the weight of the value; nothing is recorded if it is not
+	 *               positive
+	 */
+	public void record(long value, long weight) {
+		if (weight <= 0) {
+			return;
+		}
+		if (value < 0) {
+			value = 0;
+		}
+		long bucket = value >>> bucketBits;
+		counts[bucket < counts.length - 1 ? (int) bucket : counts.length - 1] += weight;
+		totalWeight += weight;
+		weightedSum += value * weight;
+		if (value < min) {
+			min = value;
+		}
+		if (value > max) {
+			max = value;
+		}
+	}
+
+	/**
+	 * @return the total weight recorded (the number of values when all were
+	 *         recorded once)
+	 */
+	public long getCount() {
+		return totalWeight;
+	}
+
+	/**
+	 * @return the weighted mean of the values recorded, or 0 if there are none
+	 */
+	public double getMean() {
+		return totalWeight == 0 ? 0 : (double) weightedSum / totalWeight;
+	}
+
+	/**
+	 * @return the smallest value recorded, or 0 if there are none
+	 */
+	public long getMin() {
+		return totalWeight == 0 ? 0 : min;
+	}
+
+	/**
+	 * @return the largest value recorded, or 0 if there are none
+	 */
+	public long getMax() {
+		return totalWeight == 0 ? 0 : max;
+	}
+
+	/**
+	 * @param q is the quantile, between 0 and 1
+	 * @return the upper bound of the bucket holding the q-quantile (capped by the
+	 *         maximum), or 0 if nothing was recorded
+	 */
+	public long getPercentile(double q) {
+		if (totalWeight == 0) {
+			return 0;
+		}
+		long target = (long) Math.ceil(q * totalWeight);
+		long cumulative = 0;
+		for (int b = 0; b < counts.length - 1; b++) {
+			cumulative += counts[b];
+			if (cumulative >= Math.max(1, target)) {
+				return Math.min(max, ((b + 1L) << bucketBits) - 1);
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * @return the width of the buckets
+	 */
+	public long getBucketWidth() {
+		return 1L << bucketBits;
+	}
+
+	/**
+	 * @return the total weight per bucket, the last entry being the overflow
+	 *         bucket (a copy)
+	 */
+	public long[] getCounts() {
+		return counts.clone();
+	}
+
+	/**
+	 * Adds the values recorded in another histogram to this one
+	 * 
+	 * @param other is a histogram with the same buckets as this one
+	 */
+	public void add(Histogram other) {
+		if (other.bucketBits != bucketBits || other.counts.length != counts.length) {
+			throw new IllegalArgumentException("Histograms with different buckets cannot be added");
+		}
+		for (int b = 0; b < counts.length; b++) {
+			counts[b] += other.counts[b];
+		}
+		totalWeight += other.totalWeight;
+		weightedSum += other.weightedSum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	/**
+	 * Clears the histogram
+	 */
+	public void reset() {
+		if (totalWeight == 0) {
+			return;
+		}
+		Arrays.fill(counts, 0);
+		totalWeight = 0;
+		weightedSum = 0;
+		min = Long.MAX_VALUE;
+		max = Long.MIN_VALUE;
+	}
+
+	/**
+	 * @return an independent copy of this histogram
+	 */
+	public Histogram copy() {
+		Histogram copy = new Histogram(bucketBits, counts.length - 1);
+		System.arraycopy(counts, 0, copy.counts, 0, counts.length);
+		copy.totalWeight = totalWeight;
+		copy.weightedSum = weightedSum;
+		copy.min = min;
+		copy.max = max;
+		return copy;
+	}
+
+	/**
+	 * Writes the histogram; only the non-empty buckets are written
+	 * 
+	 * @param out is the stream written to
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void write(DataOutputStream out) throws IOException {
+		out.writeByte(bucketBits);
+		out.writeInt(counts.length - 1);
+		int nonEmpty = 0;
+		for (long c : counts) {
+			if (c != 0) {
+				nonEmpty++;
+			}
+		}
+		out.writeInt(nonEmpty);
+		for (int b = 0; b < counts.length; b++) {
+			if (counts[b] != 0) {
+				out.writeInt(b);
+				out.writeLong(counts[b]);
+			}
+		}
+		out.writeLong(totalWeight);
+		out.writeLong(weightedSum);
+		out.writeLong(min);
+		out.writeLong(max);
+	}
+
+	/**
+	 * Reads a histogram written by write
+	 * 
+	 * @param in is the stream read from
+	 * @return the histogram
+	 * @throws IOException if the stream cannot be read
+	 */
+	public static Histogram read(DataInputStream in) throws IOException {
+		int bits = in.readByte();
+		Histogram h = new Histogram(bits, in.readInt());
+		for (int k = in.readInt(); k > 0; k--) {
+			h.counts[in.readInt()] = in.readLong();
+		}
+		h.totalWeight = in.readLong();
+		h.weightedSum = in.readLong();
+		h.min = in.readLong();
+		h.max = in.readLong();
+		return h;
+	}
+
+	/**
+	 * Returns a one-line summary of the histogram
+	 */
+	public String toString() {
+		return String.format("n=%d mean=%.2f min=%d p50=%d p90=%d p99=%d max=%d", getCount(), getMean(), getMin(),
+				getPercentile(0.5), getPercentile(0.9), getPercentile(0.99), getMax());
+	}
+}
@@ -21,9 +21,11 @@ public class LinkedQueue<D> implements Queue<D> {
 
 	private Elem<D> front;
 	private Elem<D> rear;
+	private int size;
 
 	public LinkedQueue() {
 		front = rear = null;
+		size = 0;
 	}
 
 	public boolean isEmpty() {
@@ -47,6 +49,7 @@ public class LinkedQueue<D> implements Queue<D> {
 			rear.next = newElem;
 			rear = newElem;
 		}
+		size++;
 	}
 
 	public D dequeue() {
@@ -63,9 +66,41 @@ public class LinkedQueue<D> implements Queue<D> {
 		} else {
 			front = front.next;
 		}
+		size--;
 		return returnedValue;
 	}
 
+	public int size() {
+		return size;
+	}
+
+	public D peek() {
+
+		if (isEmpty()) {
+			throw new IllegalStateException("Peek method called on an empty queue");
+		}
+
+		return front.value;
+	}
+
+	public int drainTo(Queue<? super D> target) {
+		if (target == this) {
+			throw new IllegalArgumentException("Cannot drain a queue into itself");
+		}
+		int count = 0;
+		while (!isEmpty()) {
+			target.enqueue(dequeue());
+			count++;
+		}
+		return count;
+	}
+
+	public void enqueueAll(Iterable<? extends D> elements) {
+		for (D element : elements) {
+			enqueue(element);
+		}
+	}
+
 	public String toString() {
 
 		StringBuffer returnedValue = new StringBuffer("[");
@@ -0,0 +1,253 @@
+import java.io.DataOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * The design of a parking lot: its dimensions and the type of each spot, stored
+ * as CarType ordinals at position i * spotsPerRow + j.
+ * 
+ * Designs are read from text files (one row per non-blank line, labels
+ * separated by commas) or from a compact binary format. The text parser reads
+ * the file once, byte by byte, and accepts exactly what the original
+ * Scanner-based loader accepted: blank lines are skipped, spaces around labels
+ * are ignored, trailing empty labels are dropped, unknown labels become NA, and
+ * rows shorter than the widest row are padded with NA.
+ * 
+ * Binary format (big-endian): MAGIC, VERSION, number of rows, number of spots
+ * per row (ints), then one byte (CarType ordinal) per spot in row-major order.
+ */
+public class LotDesign {
+
+	public static final int MAGIC = 0x504C4F54; // "PLOT"
+	public static final int VERSION = 1;
+	public static final int HEADER_SIZE = 16;
+
+	private static final byte NA = (byte) CarType.NA.ordinal();
+
+	private int numRows;
+	private int numSpotsPerRow;
+	private byte[] spotTypes;
+
+	/**
+	 * @param numRows        is the number of rows
+	 * @param numSpotsPerRow is the number of spots per row
+	 * @param spotTypes      are the CarType ordinals of the spots, row by row
+	 *                       (the array is not copied)
+	 */
+	public LotDesign(int numRows, int numSpotsPerRow, byte[] spotTypes) {
+		if (spotTypes.length != numRows * numSpotsPerRow) {
+			throw new IllegalArgumentException("Expected " + numRows * numSpotsPerRow + " spots, got " + spotTypes.length);
+		}
+		this.numRows = numRows;
+		this.numSpotsPerRow = numSpotsPerRow;
+		this.spotTypes = spotTypes;
+	}
+
+	public int getNumRows() {
+		return numRows;
+	}
+
+	public int getNumSpotsPerRow() {
+		return numSpotsPerRow;
+	}
+
+	/**
+	 * @return the CarType ordinals of the spots, row by row (not a copy)
+	 */
+	public byte[] getSpotTypes() {
+		return spotTypes;
+	}
+
+	/**
+	 * Loads a design, in the text or the binary format
+	 * 
+	 * @param filename is the name of the file
+	 * @return the design
+	 * @throws IOException if the file cannot be read or is not a valid design
+	 */
+	public static LotDesign load(String filename) throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(filename, "r"); FileChannel channel = file.getChannel()) {
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() >= HEADER_SIZE && buffer.getInt(0) == MAGIC) {
+				return readBinary(buffer, filename);
+			}
+			return parseText(buffer);
+		}
+	}
+
+	/**
+	 * Parses a design in the text format
+	 * 
+	 * @param buffer holds the text (ASCII or UTF-8)
+	 * @return the design
+	 */
+	public static LotDesign parseText(ByteBuffer buffer) {
+		byte[] types = new byte[256];
+		int[] rowStarts = new int[64];
+		int[] rowLengths = new int[64];
+		int rows = 0;
+		int count = 0;
+		int width = 0;
+
+		int limit = buffer.limit();
+		int p = buffer.position();
+		while (p < limit) {
+			// find the end of the line
+			int end = p;
+			while (end < limit && buffer.get(end) != '\n' && buffer.get(end) != '\r') {
+				end++;
+			}
+			int next = end + 1;
+			if (end < limit && buffer.get(end) == '\r' && next < limit && buffer.get(next) == '\n') {
+				next++;
+			}
+
+			int start = p;
+			int stop = end;
+			while (start < stop && isBlank(buffer.get(start))) {
+				start++;
+			}
+			while (stop > start && isBlank(buffer.get(stop - 1))) {
+				stop--;
+			}
+
+			if (start < stop) {
+				if (rows == rowStarts.length) {
+					rowStarts = Arrays.copyOf(rowStarts, rows * 2);
+					rowLengths = Arrays.copyOf(rowLengths, rows * 2);
+				}
+				rowStarts[rows] = count;
+
+				int length = 0; // labels up to the last non-empty one
+				int labels = 0;
+				int from = start;
+				while (from <= stop) {
+					int to = from;
+					while (to < stop && buffer.get(to) != ',') {
+						to++;
+					}
+					int a = from;
+					int b = to;
+					while (a < b && isBlank(buffer.get(a))) {
+						a++;
+					}
+					while (b > a && isBlank(buffer.get(b - 1))) {
+						b--;
+					}
+
+					if (count + labels == types.length) {
+						types = Arrays.copyOf(types, types.length * 2);
+					}
+					types[count + labels] = (b - a == 1) ? typeOf(buffer.get(a)) : NA;
+					labels++;
+					if (to > from) {
+						length = labels;
+					}
+					from = to + 1;
+				}
+
+				rowLengths[rows] = length;
+				count += length;
+				width = Math.max(width, length);
+				rows++;
+			}
+			p = next;
+		}
+
+		byte[] spotTypes = new byte[rows * width];
+		Arrays.fill(spotTypes, NA);
+		for (int i = 0; i < rows; i++) {
+			System.arraycopy(types, rowStarts[i], spotTypes, i * width, rowLengths[i]);
+		}
+		return new LotDesign(rows, width, spotTypes);
+	}
+
+	/**
+	 * Same test as String.trim()
+	 */
+	private static boolean isBlank(byte b) {
+		return b >= 0 && b <= ' ';
+	}
+
+	/**
+	 * Same mapping as Util.getCarTypeByLabel, for one-character labels
+	 */
+	private static byte typeOf(byte label) {
+		switch (label) {
+		case 'E':
+			return (byte) CarType.ELECTRIC.ordinal();
+		case 'S':
+			return (byte) CarType.SMALL.ordinal();
+		case 'R':
+			return (byte) CarType.REGULAR.ordinal();
+		case 'L':
+			return (byte) CarType.LARGE.ordinal();
+		default:
+			return NA;
+		}
+	}
+
+	private static LotDesign readBinary(ByteBuffer buffer, String filename) throws IOException {
+		buffer.order(ByteOrder.BIG_ENDIAN);
+		buffer.getInt(); // magic
+		int version = buffer.getInt();
+		int rows = buffer.getInt();
+		int perRow = buffer.getInt();
+		if (version != VERSION || rows < 0 || perRow < 0 || (long) rows * perRow != buffer.remaining()) {
+			throw new IOException(filename + " is not a valid binary lot design");
+		}
+		byte[] spotTypes = new byte[rows * perRow];
+		buffer.get(spotTypes);
+		for (byte type : spotTypes) {
+			if (type < 0 || type > NA) {
+				throw new IOException(filename + " contains an invalid spot type: " + type);
+			}
+		}
+		return new LotDesign(rows, perRow, spotTypes);
+	}
+
+	/**
+	 * Writes this design in the binary format
+	 * 
+	 * @param filename is the name of the file, overwritten if it exists
+	 * @throws IOException if the file cannot be written
+	 */
+	public void writeBinary(String filename) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(numRows);
+			out.writeInt(numSpotsPerRow);
+			out.write(spotTypes);
+		}
+	}
+
+	/**
+	 * Converts a lot design to the binary format
+	 * 
+	 * @param args the name of the design to read (text or binary) and the name of
+	 *             the binary file to write
+	 * @throws Exception
+	 */
+	public static void main(String args[]) throws Exception {
+
+		if (args.length < 2) {
+			System.out.println("Usage: java LotDesign <lot-design filename> <binary output filename>");
+			return;
+		}
+
+		long start = System.currentTimeMillis();
+		LotDesign design = load(args[0]);
+		long end = System.currentTimeMillis();
+		System.out.println("Loaded " + design.getNumRows() + " x " + design.getNumSpotsPerRow() + " spots in "
+				+ (end - start) + "ms.");
+
+		design.writeBinary(args[1]);
+	}
+}
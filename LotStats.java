@@ -0,0 +1,96 @@
+/**
+ * An immutable snapshot of the capacity and occupancy counters of a parking
+ * lot, as returned by ParkingLot.getStats().
+ */
+public class LotStats {
+
+	/**
+	 * Number of parkable spots per spot type, indexed by CarType ordinal
+	 */
+	private int[] capacity;
+
+	/**
+	 * Number of occupied spots per spot type, indexed by CarType ordinal
+	 */
+	private int[] occupancy;
+
+	/**
+	 * Number of parked cars per car type, indexed by CarType ordinal
+	 */
+	private int[] parked;
+
+	/**
+	 * Constructor for LotStats. The arrays are copied.
+	 * 
+	 * @param capacity  is the number of parkable spots per spot type
+	 * @param occupancy is the number of occupied spots per spot type
+	 * @param parked    is the number of parked cars per car type
+	 */
+	public LotStats(int[] capacity, int[] occupancy, int[] parked) {
+		this.capacity = capacity.clone();
+		this.occupancy = occupancy.clone();
+		this.parked = parked.clone();
+	}
+
+	/**
+	 * @return the total number of parkable spots
+	 */
+	public int getTotalCapacity() {
+		return sum(capacity);
+	}
+
+	/**
+	 * @return the total number of occupied spots
+	 */
+	public int getTotalOccupancy() {
+		return sum(occupancy);
+	}
+
+	/**
+	 * @param spotType is the type of spot
+	 * @return the number of parkable spots of the given type
+	 */
+	public int getCapacity(CarType spotType) {
+		return capacity[spotType.ordinal()];
+	}
+
+	/**
+	 * @param spotType is the type of spot
+	 * @return the number of occupied spots of the given type
+	 */
+	public int getOccupancy(CarType spotType) {
+		return occupancy[spotType.ordinal()];
+	}
+
+	/**
+	 * @param carType is the type of car
+	 * @return the number of parked cars of the given type, whatever the type of
+	 *         spot they use
+	 */
+	public int getParkedCars(CarType carType) {
+		return parked[carType.ordinal()];
+	}
+
+	private static int sum(int[] values) {
+		int total = 0;
+		for (int v : values)
+			total += v;
+		return total;
+	}
+
+	/**
+	 * Returns a string representation of the counters
+	 */
+	public String toString() {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append("occupancy ").append(getTotalOccupancy()).append('/').append(getTotalCapacity());
+		for (CarType type : CarType.values()) {
+			if (type != CarType.NA) {
+				buffer.append(", ").append(Util.getLabelByCarType(type)).append(": ").append(getOccupancy(type))
+						.append('/').append(getCapacity(type)).append(" (").append(getParkedCars(type))
+						.append(" cars)");
+			}
+		}
+		return buffer.toString();
+	}
+}
@@ -0,0 +1,196 @@
+/**
+ * Statistical equivalence test of the simulation modes. Replications of the
+ * same simulation are run with TIME_STEPPED, the reference, and with each other
+ * mode, from independent seeds. For every end-of-run metric, the two samples
+ * are compared with Welch's t-test (same mean) and the two-sample
+ * Kolmogorov-Smirnov test (same distribution). The modes are equivalent if no
+ * test rejects at the given level, after a Bonferroni correction for the number
+ * of tests; otherwise the program exits with status 1.
+ */
+public class ModeEquivalence {
+
+	private static final String[] METRICS = { "entered", "exited", "final occupancy", "final queue length",
+			"mean occupancy", "mean wait time (s)" };
+
+	/**
+	 * @param r is the result of a replication
+	 * @return the metrics compared, in the order of METRICS
+	 */
+	private static double[] metrics(ReplicationResult r) {
+		return new double[] { r.getEntered(), r.getExited(), r.getOccupancy(), r.getQueueLength(),
+				r.getMeanOccupancy(), r.getMeanWaitTime() };
+	}
+
+	/**
+	 * @param a is a sample
+	 * @param b is another sample
+	 * @return the two-sided p-value of Welch's t-test of equal means, with the
+	 *         normal approximation (the samples are meant to be large); 1 if both
+	 *         samples are constant and equal
+	 */
+	static double welchPValue(double[] a, double[] b) {
+		SummaryStatistics sa = new SummaryStatistics();
+		SummaryStatistics sb = new SummaryStatistics();
+		for (double x : a)
+			sa.add(x);
+		for (double x : b)
+			sb.add(x);
+		double variance = sa.getStandardDeviation() * sa.getStandardDeviation() / a.length
+				+ sb.getStandardDeviation() * sb.getStandardDeviation() / b.length;
+		double difference = Math.abs(sa.getMean() - sb.getMean());
+		if (variance == 0) {
+			return (difference == 0) ? 1.0 : 0.0;
+		}
+		return erfc(difference / Math.sqrt(2 * variance));
+	}
+
+	/**
+	 * @param a is a sample
+	 * @param b is another sample
+	 * @return the largest distance between the empirical distribution functions
+	 *         of the samples
+	 */
+	static double ksStatistic(double[] a, double[] b) {
+		double[] x = a.clone();
+		double[] y = b.clone();
+		java.util.Arrays.sort(x);
+		java.util.Arrays.sort(y);
+		int i = 0, j = 0;
+		double d = 0;
+		while (i < x.length && j < y.length) {
+			double v = Math.min(x[i], y[j]);
+			while (i < x.length && x[i] == v)
+				i++;
+			while (j < y.length && y[j] == v)
+				j++;
+			d = Math.max(d, Math.abs((double) i / x.length - (double) j / y.length));
+		}
+		return d;
+	}
+
+	/**
+	 * @param d is the Kolmogorov-Smirnov statistic of two samples
+	 * @param n is the size of the first sample
+	 * @param m is the size of the second sample
+	 * @return the asymptotic p-value of the statistic (conservative for discrete
+	 *         metrics)
+	 */
+	static double ksPValue(double d, int n, int m) {
+		double ne = Math.sqrt((double) n * m / (n + m));
+		double lambda = (ne + 0.12 + 0.11 / ne) * d;
+		if (lambda < 0.3) {
+			return 1.0;
+		}
+		double sum = 0;
+		double sign = 1;
+		for (int k = 1; k <= 100; k++) {
+			double term = sign * Math.exp(-2 * k * k * lambda * lambda);
+			sum += term;
+			if (Math.abs(term) < 1e-12) {
+				break;
+			}
+			sign = -sign;
+		}
+		return Math.max(0.0, Math.min(1.0, 2 * sum));
+	}
+
+	/**
+	 * Complementary error function, with a fractional error below 1.2e-7
+	 * (Numerical Recipes, erfcc)
+	 */
+	private static double erfc(double x) {
+		double z = Math.abs(x);
+		double t = 1.0 / (1.0 + 0.5 * z);
+		double r = t * Math.exp(-z * z - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418
+				+ t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587
+						+ t * (-0.82215223 + t * 0.17087277)))))))));
+		return (x >= 0) ? r : 2.0 - r;
+	}
+
+	/**
+	 * @param summary are the results of replications
+	 * @return the samples of each metric, in the order of METRICS
+	 */
+	private static double[][] samples(ReplicationRunner.Summary summary) {
+		ReplicationResult[] results = summary.getResults();
+		double[][] samples = new double[METRICS.length][results.length];
+		for (int r = 0; r < results.length; r++) {
+			double[] values = metrics(results[r]);
+			for (int k = 0; k < METRICS.length; k++)
+				samples[k][r] = values[k];
+		}
+		return samples;
+	}
+
+	/**
+	 * Runs the test
+	 *
+	 * @param args the lot-design filename, the hourly rate of arrival, the number
+	 *             of replications per mode, and optionally the seed and the
+	 *             significance level
+	 * @throws Exception
+	 */
+	public static void main(String args[]) throws Exception {
+
+		if (args.length < 3) {
+			System.out.println(
+					"Usage: java ModeEquivalence <lot-design filename> <hourly rate of arrival> <replications> [seed] [level]");
+			System.out.println("Example: java ModeEquivalence parking.inf 11 200 42 0.01");
+			return;
+		}
+
+		ParkingLot design = new ParkingLot(args[0]);
+		int rate = Integer.parseInt(args[1]);
+		int replications = Integer.parseInt(args[2]);
+		long seed = (args.length > 3) ? Long.parseLong(args[3]) : System.nanoTime();
+		double level = (args.length > 4) ? Double.parseDouble(args[4]) : 0.01;
+		int threads = Runtime.getRuntime().availableProcessors();
+
+		// independent seeds, so the samples of the modes are independent
+		SplitMix64 seeds = new SplitMix64(seed);
+		SimulationMode[] modes = SimulationMode.values();
+		double[][][] samples = new double[modes.length][][];
+		for (SimulationMode mode : modes) {
+			samples[mode.ordinal()] = samples(ReplicationRunner.run(design, rate, Simulator.SIMULATION_DURATION, mode,
+					replications, seeds.nextLong(), threads));
+		}
+
+		int tests = 2 * METRICS.length * (modes.length - 1);
+		double threshold = level / tests;
+		System.out.println("seed: " + seed + ", replications per mode: " + replications + ", level: " + level
+				+ " (" + String.format("%.2g", threshold) + " per test, " + tests + " tests)");
+		System.out.println(String.format("%-14s %-20s %18s %18s %10s %8s %10s", "mode", "metric", "TIME_STEPPED",
+				"mode", "Welch p", "KS D", "KS p"));
+
+		SimulationMode reference = SimulationMode.TIME_STEPPED;
+		boolean equivalent = true;
+		for (SimulationMode mode : modes) {
+			if (mode == reference) {
+				continue;
+			}
+			for (int k = 0; k < METRICS.length; k++) {
+				double[] a = samples[reference.ordinal()][k];
+				double[] b = samples[mode.ordinal()][k];
+				SummaryStatistics sa = new SummaryStatistics();
+				SummaryStatistics sb = new SummaryStatistics();
+				for (double x : a)
+					sa.add(x);
+				for (double x : b)
+					sb.add(x);
+				double welch = welchPValue(a, b);
+				double d = ksStatistic(a, b);
+				double ks = ksPValue(d, a.length, b.length);
+				boolean rejected = welch < threshold || ks < threshold;
+				equivalent &= !rejected;
+				System.out.println(String.format("%-14s %-20s %18s %18s %10.4f %8.4f %10.4f%s", mode, METRICS[k], sa,
+						sb, welch, d, ks, rejected ? "  REJECTED" : ""));
+			}
+		}
+
+		System.out.println(equivalent ? "Equivalent: no test rejects at level " + level + "."
+				: "NOT equivalent: see the rejected metrics above.");
+		if (!equivalent) {
+			System.exit(1);
+		}
+	}
+}
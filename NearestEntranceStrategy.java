@@ -0,0 +1,95 @@
+/**
+ * Allocates the compatible spot closest to the entrance of the lot, by
+ * Manhattan distance in rows and spots (ties go to the lower position).
+ * 
+ * Spots are ranked by distance once, when the strategy is built; the free spots
+ * of each type are then kept in a FreeSpotIndex by rank, so the nearest
+ * compatible spot is the lowest of the first free ranks of the compatible types.
+ */
+public class NearestEntranceStrategy implements AllocationStrategy {
+
+	private static final CarType[] CAR_TYPES = CarType.values();
+
+	/**
+	 * The spot types (CarType ordinals) of the lot
+	 */
+	private byte[] lotDesign;
+
+	/**
+	 * The rank of each position, and the position with each rank
+	 */
+	private int[] rankOf;
+	private int[] positionAt;
+
+	/**
+	 * Free spot ranks, indexed by spot type ordinal
+	 */
+	private FreeSpotIndex[] freeRanks;
+
+	/**
+	 * @param lotDesign      are the spot types (CarType ordinals) of the lot; every
+	 *                       parkable spot starts free
+	 * @param numSpotsPerRow is the number of spots per row of the lot
+	 * @param entranceRow    is the row of the entrance
+	 * @param entranceSpot   is the index of the entrance within its row
+	 */
+	public NearestEntranceStrategy(byte[] lotDesign, int numSpotsPerRow, int entranceRow, int entranceSpot) {
+		this.lotDesign = lotDesign;
+		int size = lotDesign.length;
+		int numRows = (numSpotsPerRow == 0) ? 0 : size / numSpotsPerRow;
+
+		// counting sort of the positions by distance; positions at the same
+		// distance keep their order
+		int maxDistance = Math.max(entranceRow, numRows - 1 - entranceRow)
+				+ Math.max(entranceSpot, numSpotsPerRow - 1 - entranceSpot);
+		int[] start = new int[Math.max(0, maxDistance) + 2];
+		for (int position = 0; position < size; position++) {
+			start[distance(position, numSpotsPerRow, entranceRow, entranceSpot) + 1]++;
+		}
+		for (int d = 1; d < start.length; d++) {
+			start[d] += start[d - 1];
+		}
+		rankOf = new int[size];
+		positionAt = new int[size];
+		for (int position = 0; position < size; position++) {
+			int rank = start[distance(position, numSpotsPerRow, entranceRow, entranceSpot)]++;
+			rankOf[position] = rank;
+			positionAt[rank] = position;
+		}
+
+		freeRanks = new FreeSpotIndex[CAR_TYPES.length];
+		for (int t = 0; t < freeRanks.length; t++) {
+			freeRanks[t] = new FreeSpotIndex(size);
+		}
+		for (int position = 0; position < size; position++) {
+			if (lotDesign[position] != CarType.NA.ordinal()) {
+				freeRanks[lotDesign[position]].add(rankOf[position]);
+			}
+		}
+	}
+
+	private static int distance(int position, int numSpotsPerRow, int entranceRow, int entranceSpot) {
+		return Math.abs(position / numSpotsPerRow - entranceRow) + Math.abs(position % numSpotsPerRow - entranceSpot);
+	}
+
+	public int find(CarType carType) {
+		int rank = -1;
+		for (CarType spotType : CAR_TYPES) {
+			if (ParkingLot.fits(carType, spotType)) {
+				int candidate = freeRanks[spotType.ordinal()].first();
+				if (candidate >= 0 && (rank < 0 || candidate < rank)) {
+					rank = candidate;
+				}
+			}
+		}
+		return (rank < 0) ? -1 : positionAt[rank];
+	}
+
+	public void claim(int position) {
+		freeRanks[lotDesign[position]].remove(rankOf[position]);
+	}
+
+	public void release(int position) {
+		freeRanks[lotDesign[position]].add(rankOf[position]);
+	}
+}
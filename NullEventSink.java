@@ -0,0 +1,20 @@
+/**
+ * SimulationEventSink discarding every event, e.g. for benchmarks and
+ * replications.
+ */
+public class NullEventSink implements SimulationEventSink {
+
+	/**
+	 * The (stateless) instance of this sink
+	 */
+	public static final NullEventSink INSTANCE = new NullEventSink();
+
+	public void publish(EventKind kind, Car car, int clock, int occupancy, int row, int spot) {
+	}
+
+	public void flush() {
+	}
+
+	public void close() {
+	}
+}
@@ -0,0 +1,35 @@
+/**
+ * OccupancyStore keeping one Spot object per parked car.
+ */
+public class ObjectOccupancyStore implements OccupancyStore {
+
+	private Spot[] spots;
+
+	public ObjectOccupancyStore(int size) {
+		spots = new Spot[size];
+	}
+
+	public boolean isOccupied(int position) {
+		return spots[position] != null;
+	}
+
+	public int getTimestamp(int position) {
+		return spots[position].getTimestamp();
+	}
+
+	public Car getCar(int position) {
+		return spots[position].getCar();
+	}
+
+	public Spot getSpot(int position) {
+		return spots[position];
+	}
+
+	public void put(int position, Car car, int timestamp) {
+		spots[position] = new Spot(car, timestamp);
+	}
+
+	public void clear(int position) {
+		spots[position] = null;
+	}
+}
@@ -0,0 +1,83 @@
+/**
+ * Storage for the occupancy of the spots of a parking lot. Spots are addressed
+ * by their position i * numSpotsPerRow + j.
+ */
+public interface OccupancyStore {
+
+	/**
+	 * The available storage backends
+	 */
+	enum Kind {
+		/**
+		 * One Spot object per parked car (the original representation)
+		 */
+		OBJECT,
+
+		/**
+		 * Flat primitive arrays on the Java heap
+		 */
+		ARRAY,
+
+		/**
+		 * Primitive fields in a direct (off-heap) ByteBuffer
+		 */
+		OFF_HEAP;
+	}
+
+	/**
+	 * @param kind is the storage backend
+	 * @param size is the number of spots
+	 * @return an empty store of the given kind
+	 */
+	static OccupancyStore create(Kind kind, int size) {
+		switch (kind) {
+		case ARRAY:
+			return new ArrayOccupancyStore(size);
+		case OFF_HEAP:
+			return new OffHeapOccupancyStore(size);
+		default:
+			return new ObjectOccupancyStore(size);
+		}
+	}
+
+	/**
+	 * @param position is the spot position
+	 * @return true if a car is parked at the position
+	 */
+	boolean isOccupied(int position);
+
+	/**
+	 * @param position is the spot position; it must be occupied
+	 * @return the timestamp of the car parked at the position
+	 */
+	int getTimestamp(int position);
+
+	/**
+	 * @param position is the spot position; it must be occupied
+	 * @return the car parked at the position
+	 */
+	Car getCar(int position);
+
+	/**
+	 * @param position is the spot position
+	 * @return the spot at the position, or null if the position is free; stores
+	 *         that do not keep Spot objects create one on demand
+	 */
+	Spot getSpot(int position);
+
+	/**
+	 * Records a car as parked at a position
+	 * 
+	 * @param position  is the spot position
+	 * @param car       is the car
+	 * @param timestamp is the timestamp of the car
+	 */
+	void put(int position, Car car, int timestamp);
+
+	/**
+	 * Marks a position as free
+	 * 
+	 * @param position is the spot position
+	 */
+	void clear(int position);
+}
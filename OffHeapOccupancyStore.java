@@ -0,0 +1,86 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * OccupancyStore keeping the occupancy of each spot in a fixed-size record of a
+ * direct ByteBuffer, outside the Java heap. Parking a car does not allocate;
+ * Car and Spot objects are only created when getCar or getSpot is called.
+ */
+public class OffHeapOccupancyStore implements OccupancyStore {
+
+	/**
+	 * Record layout: car type ordinal (byte, FREE when the spot is free), then the
+	 * timestamp (int), then the encoded plate (int, see Car.encodePlate, or -1 if
+	 * the plate cannot be encoded)
+	 */
+	private static final int TYPE_OFFSET = 0;
+	private static final int TIMESTAMP_OFFSET = 1;
+	private static final int PLATE_OFFSET = 5;
+	private static final int RECORD_SIZE = 9;
+
+	private static final byte FREE = -1;
+
+	private static final CarType[] CAR_TYPES = CarType.values();
+
+	private ByteBuffer records;
+
+	/**
+	 * The parked cars whose plate cannot be encoded; created when first needed
+	 */
+	private Car[] unencodedCars;
+
+	/**
+	 * The number of spots
+	 */
+	private int size;
+
+	public OffHeapOccupancyStore(int size) {
+		this.size = size;
+		records = ByteBuffer.allocateDirect(size * RECORD_SIZE).order(ByteOrder.nativeOrder());
+		for (int p = 0; p < size; p++) {
+			records.put(p * RECORD_SIZE + TYPE_OFFSET, FREE);
+		}
+	}
+
+	public boolean isOccupied(int position) {
+		return records.get(position * RECORD_SIZE + TYPE_OFFSET) != FREE;
+	}
+
+	public int getTimestamp(int position) {
+		return records.getInt(position * RECORD_SIZE + TIMESTAMP_OFFSET);
+	}
+
+	public Car getCar(int position) {
+		int plateCode = records.getInt(position * RECORD_SIZE + PLATE_OFFSET);
+		if (plateCode < 0) {
+			return unencodedCars[position];
+		}
+		return new Car(CAR_TYPES[records.get(position * RECORD_SIZE + TYPE_OFFSET)], plateCode);
+	}
+
+	public Spot getSpot(int position) {
+		if (!isOccupied(position)) {
+			return null;
+		}
+		return new Spot(getCar(position), getTimestamp(position));
+	}
+
+	public void put(int position, Car car, int timestamp) {
+		records.put(position * RECORD_SIZE + TYPE_OFFSET, (byte) car.getType().ordinal());
+		records.putInt(position * RECORD_SIZE + TIMESTAMP_OFFSET, timestamp);
+		records.putInt(position * RECORD_SIZE + PLATE_OFFSET, car.getPlateCode());
+		if (car.getPlateCode() < 0) {
+			if (unencodedCars == null) {
+				unencodedCars = new Car[size];
+			}
+			unencodedCars[position] = car;
+		}
+	}
+
+	public void clear(int position) {
+		records.put(position * RECORD_SIZE + TYPE_OFFSET, FREE);
+		if (unencodedCars != null) {
+			unencodedCars[position] = null;
+		}
+	}
+}
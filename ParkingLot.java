@@ -1,14 +1,15 @@
-import java.io.File;bbbbbbbbbbb b
-import java.util.Scanner;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 
 /**
  * @author Mehrdad Sabetzadeh, University of Ottawa
  */
 public class ParkingLot {
 	/**
-	 * The delimiter that separates values
+	 * The car types, cached to avoid copying CarType.values() on every lookup
 	 */
-	private static final String SEPARATOR = ",";
+	private static final CarType[] CAR_TYPES = CarType.values();
 
 	/**
 	 * Instance variable for storing the number of rows in a parking lot
@@ -21,15 +22,61 @@ public class ParkingLot {
 	private int numSpotsPerRow;
 
 	/**
-	 * Instance variable (two-dimensional array) for storing the lot design
+	 * Instance variable for storing the lot design: the ordinal of the type of
+	 * spot (i, j) is stored at position i * numSpotsPerRow + j
 	 */
-	private CarType[][] lotDesign;
+	private byte[] lotDesign;
 
 	/**
-	 * Instance variable (two-dimensional array) for storing occupancy information
-	 * for the spots in the lot
+	 * Instance variable for storing occupancy information for the spots in the
+	 * lot, by position i * numSpotsPerRow + j
 	 */
-	private Spot[][] occupancy;
+	private OccupancyStore occupancy;
+
+	/**
+	 * Instance variable for choosing the spots cars park in; it indexes the free
+	 * spots of the lot
+	 */
+	private AllocationStrategy allocation;
+	private AllocationStrategy.Kind allocationKind = AllocationStrategy.Kind.FIRST_FIT;
+
+	/**
+	 * Running count of parkable spots per spot type, indexed by ordinal
+	 */
+	private int[] capacityByType;
+
+	/**
+	 * Running count of occupied spots per spot type, indexed by ordinal
+	 */
+	private int[] occupancyByType;
+
+	/**
+	 * Running count of parked cars per car type, indexed by ordinal
+	 */
+	private int[] parkedByType;
+
+	/**
+	 * Running totals of parkable and occupied spots
+	 */
+	private int totalCapacity, totalOccupancy;
+
+	/**
+	 * The advance reservations of the lot, created on first use
+	 */
+	private ReservationBook reservations;
+
+	/**
+	 * Whether each spot is held by a reservation whose window starts within the
+	 * lead time of the book or has started, by position; such spots stay
+	 * claimed in the allocation index even when empty
+	 */
+	private boolean[] held;
+
+	/**
+	 * Running count of empty spots held by reservations per spot type, indexed
+	 * by ordinal
+	 */
+	private int[] heldByType;
 
 	/**
 	 * Constructs a parking lot by loading a file
@@ -37,25 +84,75 @@ public class ParkingLot {
 	 * @param strFilename is the name of the file
 	 */
 	public ParkingLot(String strFilename) throws Exception {
+		this(strFilename, OccupancyStore.Kind.OBJECT);
+	}
 
-		// WRITE YOUR CODE HERE!
+	/**
+	 * Constructs a parking lot by loading a file
+	 * 
+	 * @param strFilename is the name of the file
+	 * @param storage     is how the occupancy of the spots is stored
+	 */
+	public ParkingLot(String strFilename, OccupancyStore.Kind storage) throws Exception {
 		
 		if (strFilename == null) {
 			System.out.println("File name cannot be null.");
 			return;
 		}
 
-		// determine numRows and numSpotsPerRow
-		calculateLotDimensions(strFilename);
+		// text or binary design, read in a single pass
+		LotDesign design = LotDesign.load(strFilename);
 
-		lotDesign = new CarType[numRows][numSpotsPerRow];
+		numRows = design.getNumRows();
+		numSpotsPerRow = design.getNumSpotsPerRow();
+		lotDesign = design.getSpotTypes();
 
-		occupancy = new Spot[numRows][numSpotsPerRow];
+		occupancy = OccupancyStore.create(storage, numRows * numSpotsPerRow);
 
-		populateDesignFromFile(strFilename);
+		buildSpotIndexes();
 		
 	}
 
+	/**
+	 * Constructs an empty parking lot from a design
+	 * 
+	 * @param design  is the design of the lot
+	 * @param storage is how the occupancy of the spots is stored
+	 */
+	public ParkingLot(LotDesign design, OccupancyStore.Kind storage) {
+		numRows = design.getNumRows();
+		numSpotsPerRow = design.getNumSpotsPerRow();
+		lotDesign = design.getSpotTypes().clone();
+		occupancy = OccupancyStore.create(storage, numRows * numSpotsPerRow);
+		buildSpotIndexes();
+	}
+
+	/**
+	 * Constructs an empty parking lot with the same design and allocation
+	 * strategy as another lot
+	 * 
+	 * @param design  is the lot whose design is copied (its occupancy is ignored)
+	 * @param storage is how the occupancy of the spots is stored
+	 */
+	public ParkingLot(ParkingLot design, OccupancyStore.Kind storage) {
+		numRows = design.numRows;
+		numSpotsPerRow = design.numSpotsPerRow;
+		lotDesign = design.lotDesign.clone();
+		allocationKind = design.allocationKind;
+		occupancy = OccupancyStore.create(storage, numRows * numSpotsPerRow);
+		buildSpotIndexes();
+	}
+
+	/**
+	 * Constructs an empty parking lot with the same design and allocation
+	 * strategy as another lot
+	 * 
+	 * @param design is the lot whose design is copied (its occupancy is ignored)
+	 */
+	public ParkingLot(ParkingLot design) {
+		this(design, OccupancyStore.Kind.OBJECT);
+	}
+
 	public int getNumRows() {
 		return numRows;
 	}
@@ -64,6 +161,13 @@ public class ParkingLot {
 		return numSpotsPerRow;
 	}
 
+	/**
+	 * @return a copy of the design of this lot
+	 */
+	public LotDesign getDesign() {
+		return new LotDesign(numRows, numSpotsPerRow, lotDesign.clone());
+	}
+
 	/**
 	 * Parks a car (c) at a give location (i, j) within the parking lot.
 	 * 
@@ -78,9 +182,17 @@ public class ParkingLot {
 			System.out.println("Car " + c + " cannot be parked at (" + i + "," + j + ")");
 			return;
 		}
-		Spot nSpot = new Spot (c, timestamp);
+		int position = i * numSpotsPerRow + j;
 		
-		occupancy[i][j] = nSpot;
+		occupancy.put(position, c, timestamp);
+		if (held != null && held[position]) {
+			heldByType[lotDesign[position]]--;
+		} else {
+			allocation.claim(position);
+		}
+		occupancyByType[lotDesign[position]]++;
+		parkedByType[c.getType().ordinal()]++;
+		totalOccupancy++;
 	}
 
 	/**
@@ -98,8 +210,21 @@ public class ParkingLot {
 			return null;
 		}
 
-		Spot s = occupancy[i][j];
-		occupancy[i][j] = null;
+		int position = i * numSpotsPerRow + j;
+		if (!occupancy.isOccupied(position)) {
+			return null;
+		}
+
+		Spot s = occupancy.getSpot(position);
+		occupancy.clear(position);
+		if (held != null && held[position]) {
+			heldByType[lotDesign[position]]++; // the spot stays reserved
+		} else {
+			allocation.release(position);
+		}
+		occupancyByType[lotDesign[position]]--;
+		parkedByType[s.getCar().getType().ordinal()]--;
+		totalOccupancy--;
 		
 		return s;
 	}
@@ -118,7 +243,44 @@ public class ParkingLot {
 			System.out.println("Out of range index error.");
 			return null;
 		}
-		return occupancy[i][j];
+		return occupancy.getSpot(i * numSpotsPerRow + j);
+	}
+
+	/**
+	 * @param i is the parking row index
+	 * @param j is the index of the spot within row i
+	 * @return the type of spot (i, j), CarType.NA for spots where no car can park
+	 */
+	public CarType getSpotTypeAt(int i, int j) {
+		if (i >= numRows || j >= numSpotsPerRow) {
+			return CarType.NA;
+		}
+		return CAR_TYPES[lotDesign[i * numSpotsPerRow + j]];
+	}
+
+	/**
+	 * Same as getSpotAt(i, j) != null, without creating a Spot
+	 * 
+	 * @param i is the parking row index
+	 * @param j is the index of the spot within row i
+	 * @return true if a car is parked at (i, j)
+	 */
+	public boolean isOccupied(int i, int j) {
+		if (i >= numRows || j >= numSpotsPerRow) {
+			return false;
+		}
+		return occupancy.isOccupied(i * numSpotsPerRow + j);
+	}
+
+	/**
+	 * Same as getSpotAt(i, j).getTimestamp(), without creating a Spot
+	 * 
+	 * @param i is the parking row index
+	 * @param j is the index of the spot within row i
+	 * @return the timestamp of the car parked at (i, j), which must be occupied
+	 */
+	public int getTimestampAt(int i, int j) {
+		return occupancy.getTimestamp(i * numSpotsPerRow + j);
 	}
 
 	/**
@@ -139,12 +301,23 @@ public class ParkingLot {
 			return false;
 		}
 
-		if (occupancy[i][j] != null) {
+		if (occupancy.isOccupied(i * numSpotsPerRow + j)) {
 			return false;
 		}
 
-		CarType carType = c.getType();
-		CarType spotType = lotDesign[i][j];
+		return fits(c.getType(), CAR_TYPES[lotDesign[i * numSpotsPerRow + j]]);
+	}
+
+	/**
+	 * Checks whether a car of a given type is allowed to use a spot of a given
+	 * type. A car may park in a spot designed for its own type or for any larger
+	 * type, in the order ELECTRIC, SMALL, REGULAR, LARGE.
+	 * 
+	 * @param carType  is the type of the car
+	 * @param spotType is the type of the spot
+	 * @return true if the car type fits the spot type and false otherwise
+	 */
+	static boolean fits(CarType carType, CarType spotType) {
 
 		if (carType == CarType.ELECTRIC) {
 			return (spotType == CarType.ELECTRIC) || (spotType == CarType.SMALL) || (spotType == CarType.REGULAR)
@@ -162,6 +335,19 @@ public class ParkingLot {
 		return false;
 	}
 
+	/**
+	 * @param carType is the type of car
+	 * @return true if a car of the given type can park somewhere in the lot
+	 */
+	public boolean hasSpotFor(CarType carType) {
+		for (int t = 0; t < CAR_TYPES.length; t++) {
+			if (occupancyByType[t] + heldByType[t] < capacityByType[t] && fits(carType, CAR_TYPES[t])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Attempts to park a car in the lot. Parking is successful if a suitable parking spot
 	 * is available in the lot. If some suitable spot is found (anywhere in the lot), the car
@@ -174,20 +360,122 @@ public class ParkingLot {
 	 * @return true if c is successfully parked somwhere in the lot, and false otherwise
 	 */
 	public boolean attemptParking(Car c, int timestamp) {
+		return attemptParkingAt(c, timestamp) >= 0;
+	}
 
-		// WRITE YOUR CODE HERE!
-		for (int i = 0; i < occupancy.length; i++){
-			for(int j = 0; j < occupancy[i].length; j++){
-				if ((canParkAt(i,j,c)){
-					park(i,j,c, timestamp);
-					return true;
-				}
-		        }
-	        }
-    
-		
-		return false; 
+	/**
+	 * Same as attemptParking, but reports where the car was parked. The spot is
+	 * chosen by the allocation strategy of the lot, among the spots not held by a
+	 * reservation at the given time. A car that waited to park should be parked
+	 * after advanceReservationsTo brought the reservations up to the current
+	 * time, since its timestamp is its arrival time.
+	 * 
+	 * @param c         is the car to be parked
+	 * @param timestamp is the simulation time at which parking is attempted for
+	 *                  car c
+	 * @return the position i * getNumSpotsPerRow() + j of the spot (i, j) where c
+	 *         was parked, or -1 if no suitable spot is available
+	 */
+	public int attemptParkingAt(Car c, int timestamp) {
+
+		advanceReservationsTo(timestamp);
+
+		int position = allocation.find(c.getType());
+
+		if (position < 0) {
+			return -1;
+		}
+
+		park(position / numSpotsPerRow, position % numSpotsPerRow, c, timestamp);
+		return position;
+	}
+
+	/**
+	 * Brings the reservations of the lot up to a given time: the spots of the
+	 * windows about to start are held, and those of the windows ended are
+	 * released. Does nothing if the lot has no reservations.
+	 * 
+	 * @param time is the (simulated) current time
+	 */
+	public void advanceReservationsTo(int time) {
+		if (reservations != null) {
+			reservations.advanceTo(time);
+		}
+	}
+
+	/**
+	 * @return the next (simulated) time a reservation window ends and may free
+	 *         its spot, or Integer.MAX_VALUE if none is pending
+	 */
+	public int nextReservationRelease() {
+		return (reservations != null) ? reservations.nextRelease() : Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Parks the car holding a reservation in its reserved spot. If a car is
+	 * still parked there, the reservation is moved to another compatible spot
+	 * free for the rest of its window.
+	 * 
+	 * @param id        is the number of the reservation
+	 * @param c         is the car to be parked; its type must fit the spot
+	 * @param timestamp is the simulation time at which parking is attempted, within
+	 *                  the window of the reservation
+	 * @return the position where c was parked, or -1 if the reservation is
+	 *         unknown or not current, or if no spot is free for it
+	 */
+	public int parkReserved(int id, Car c, int timestamp) {
+		ReservationBook book = getReservations();
+		book.advanceTo(timestamp);
+		Reservation r = book.get(id);
+		if (r == null || !r.covers(timestamp) || !fits(c.getType(), getSpotTypeAt(r.getRow(), r.getSpot()))) {
+			return -1;
+		}
+		if (occupancy.isOccupied(r.getPosition())) {
+			r = book.move(id);
+			if (r == null || !fits(c.getType(), getSpotTypeAt(r.getRow(), r.getSpot()))) {
+				return -1;
+			}
+		}
+		park(r.getRow(), r.getSpot(), c, timestamp);
+		return r.getPosition();
+	}
+
+	/**
+	 * @return the advance reservations of the lot
+	 */
+	public ReservationBook getReservations() {
+		if (reservations == null) {
+			held = new boolean[lotDesign.length];
+			reservations = new ReservationBook(this);
+		}
+		return reservations;
+	}
 
+	/**
+	 * Holds a spot for a reservation whose window is about to start, so the
+	 * allocation strategy no longer offers it
+	 * 
+	 * @param position is the position of the spot
+	 */
+	void hold(int position) {
+		held[position] = true;
+		if (!occupancy.isOccupied(position)) {
+			allocation.claim(position);
+			heldByType[lotDesign[position]]++;
+		}
+	}
+
+	/**
+	 * Releases a spot held by hold
+	 * 
+	 * @param position is the position of the spot
+	 */
+	void unhold(int position) {
+		held[position] = false;
+		if (!occupancy.isOccupied(position)) {
+			allocation.release(position);
+			heldByType[lotDesign[position]]--;
+		}
 	}
 
 	/**
@@ -195,71 +483,108 @@ public class ParkingLot {
 	 *         used for parking (i.e., excluding spots that point to CarType.NA)
 	 */
 	public int getTotalCapacity() {
-		// WRITE YOUR CODE HERE!
-		int count = 0;
-
-		for (int i = 0; i < numRows; i++)
-			for (int j = 0; j < numSpotsPerRow; j++)
-				if (lotDesign[i][j] != CarType.NA)
-					count++;
-
-		return count;
+		return totalCapacity;
 	}
 
 	/**
 	 * @return the total occupancy of the parking lot
 	 */
 	public int getTotalOccupancy() {
-		// WRITE YOUR CODE HERE!
-		int count = 0;
-
-		for (int i = 0; i < numRows; i++)
-			for (int j = 0; j < numSpotsPerRow; j++)
-				if (occupancy[i][j] != null)
-					count++;
+		return totalOccupancy;
+	}
 
-		return count;
+	/**
+	 * @return a snapshot of the capacity and occupancy counters of the lot, overall
+	 *         and per type
+	 */
+	public LotStats getStats() {
+		return new LotStats(capacityByType, occupancyByType, parkedByType);
 	}
 
-	private void calculateLotDimensions(String strFilename) throws Exception {
-		// WRITE YOUR CODE HERE!
-		Scanner scanner = new Scanner(new File(strFilename));
+	/**
+	 * Sets how the spots cars park in are chosen; the default is FIRST_FIT. Cars
+	 * already parked keep their spots.
+	 * 
+	 * @param kind is the allocation strategy
+	 */
+	public void setAllocationStrategy(AllocationStrategy.Kind kind) {
+		allocationKind = kind;
+		allocation = AllocationStrategy.create(kind, lotDesign, numSpotsPerRow);
+		for (int position = 0; position < lotDesign.length; position++)
+			if (occupancy.isOccupied(position) || (held != null && held[position]))
+				allocation.claim(position);
+	}
 
-		while (scanner.hasNext()) {
-			String str = scanner.nextLine().trim();
+	/**
+	 * @return how the spots cars park in are chosen
+	 */
+	public AllocationStrategy.Kind getAllocationStrategy() {
+		return allocationKind;
+	}
 
-			if (!(str.isEmpty())) {
-				numRows++;
-				String[] tokens = str.split(SEPARATOR);
-				numSpotsPerRow = Integer.max(tokens.length, numSpotsPerRow);
+	/**
+	 * Writes the design, the allocation strategy, the cars parked in the lot and
+	 * its reservations
+	 * 
+	 * @param out is the stream written to
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void write(DataOutputStream out) throws IOException {
+		out.writeInt(numRows);
+		out.writeInt(numSpotsPerRow);
+		out.write(lotDesign);
+		out.writeByte(allocationKind.ordinal());
+		out.writeInt(totalOccupancy);
+		for (int position = 0; position < lotDesign.length; position++)
+			if (occupancy.isOccupied(position)) {
+				out.writeInt(position);
+				occupancy.getSpot(position).write(out);
 			}
-			
-			//will the file not have a sectioner?
+		out.writeBoolean(reservations != null);
+		if (reservations != null) {
+			reservations.write(out);
 		}
-
-		scanner.close();
-
 	}
 
-	private void populateDesignFromFile(String strFilename) throws Exception {
-		// WRITE YOUR CODE HERE!
-		Scanner scanner = new Scanner(new File(strFilename));
-		int lineCount = 0;
-		int rowNumber = 0;
-		// while loop for reading the lot design
-		while (scanner.hasNext()) {
-			String str = scanner.nextLine().trim();
-			lineCount++;
-
-			if (!(str.isEmpty())) {
-				String[] tokens = str.split(",");
-				for (int i = 0; i < tokens.length; i++)
-					lotDesign[rowNumber][i] = Util.getCarTypeByLabel(tokens[i].trim());
-				rowNumber++;
-			}
+	/**
+	 * Reads a lot written by write
+	 * 
+	 * @param in      is the stream read from
+	 * @param storage is how the occupancy of the spots is stored
+	 * @return the lot, with its cars parked and its spots reserved
+	 * @throws IOException if the stream cannot be read
+	 */
+	public static ParkingLot read(DataInputStream in, OccupancyStore.Kind storage) throws IOException {
+		int rows = in.readInt();
+		int perRow = in.readInt();
+		byte[] spotTypes = new byte[rows * perRow];
+		in.readFully(spotTypes);
+		ParkingLot lot = new ParkingLot(new LotDesign(rows, perRow, spotTypes), storage);
+		lot.setAllocationStrategy(AllocationStrategy.Kind.values()[in.readByte()]);
+		for (int k = in.readInt(); k > 0; k--) {
+			int position = in.readInt();
+			Spot s = Spot.read(in);
+			lot.park(position / perRow, position % perRow, s.getCar(), s.getTimestamp());
+		}
+		if (in.readBoolean()) {
+			ReservationBook.read(in, lot.getReservations());
 		}
+		return lot;
+	}
 
+	private void buildSpotIndexes() {
+		allocation = AllocationStrategy.create(allocationKind, lotDesign, numSpotsPerRow);
 
+		capacityByType = new int[CAR_TYPES.length];
+		occupancyByType = new int[CAR_TYPES.length];
+		parkedByType = new int[CAR_TYPES.length];
+		heldByType = new int[CAR_TYPES.length];
+
+		for (int position = 0; position < lotDesign.length; position++)
+			if (lotDesign[position] != CarType.NA.ordinal()) {
+				capacityByType[lotDesign[position]]++;
+				totalCapacity++;
+			}
 	}
 
 	/**
@@ -270,10 +595,9 @@ public class ParkingLot {
 		StringBuffer buffer = new StringBuffer();
 		buffer.append("==== Lot Design ====").append(System.lineSeparator());
 
-		for (int i = 0; i < lotDesign.length; i++) {
-			for (int j = 0; j < lotDesign[0].length; j++) {
-				buffer.append((lotDesign[i][j] != null) ? Util.getLabelByCarType(lotDesign[i][j])
-						: Util.getLabelByCarType(CarType.NA));
+		for (int i = 0; i < numRows; i++) {
+			for (int j = 0; j < numSpotsPerRow; j++) {
+				buffer.append(Util.getLabelByCarType(CAR_TYPES[lotDesign[i * numSpotsPerRow + j]]));
 				if (j < numSpotsPerRow - 1) {
 					buffer.append(", ");
 				}
@@ -283,10 +607,11 @@ public class ParkingLot {
 
 		buffer.append(System.lineSeparator()).append("==== Parking Occupancy ====").append(System.lineSeparator());
 
-		for (int i = 0; i < occupancy.length; i++) {
-			for (int j = 0; j < occupancy[0].length; j++) {
+		for (int i = 0; i < numRows; i++) {
+			for (int j = 0; j < numSpotsPerRow; j++) {
+				Spot spot = getSpotAt(i, j);
 				buffer.append(
-						"(" + i + ", " + j + "): " + ((occupancy[i][j] != null) ? occupancy[i][j] : "Unoccupied"));
+						"(" + i + ", " + j + "): " + ((spot != null) ? spot : "Unoccupied"));
 				buffer.append(System.lineSeparator());
 			}
 
@@ -0,0 +1,107 @@
+/**
+ * The Philox2x64-10 counter-based generator of Salmon et al. (Random123): the
+ * i-th block of two random longs is a keyed bijection of the counter i, so a
+ * stream is identified by its key alone and any position of it can be reached
+ * directly. Streams with different keys are independent.
+ *
+ * An instance is not thread-safe; give each thread its own key.
+ */
+public class Philox2x64 implements RandomSource {
+
+	private static final long M = 0xd2b74407b1ce6e93L;
+	private static final long W = 0x9e3779b97f4a7c15L;
+	private static final int ROUNDS = 10;
+
+	private long key;
+
+	/**
+	 * The 128-bit counter of the next block
+	 */
+	private long counter0, counter1;
+
+	/**
+	 * The second long of the last block, when it has not been used yet
+	 */
+	private long buffered;
+	private boolean hasBuffered;
+
+	/**
+	 * Constructs the stream of a key, from its first block
+	 *
+	 * @param key is the key
+	 */
+	public Philox2x64(long key) {
+		this(key, 0);
+	}
+
+	/**
+	 * Constructs the stream of a key from a given block
+	 *
+	 * @param key   is the key
+	 * @param block is the index of the first block to use; each block holds two
+	 *              longs
+	 */
+	public Philox2x64(long key, long block) {
+		this.key = key;
+		this.counter0 = block;
+	}
+
+	/**
+	 * Constructs a generator from a state returned by getState
+	 *
+	 * @param state is the state
+	 */
+	public Philox2x64(long[] state) {
+		key = state[0];
+		counter0 = state[1];
+		counter1 = state[2];
+		buffered = state[3];
+		hasBuffered = state[4] != 0;
+	}
+
+	public long nextLong() {
+		if (hasBuffered) {
+			hasBuffered = false;
+			return buffered;
+		}
+		long x0 = counter0;
+		long x1 = counter1;
+		long k = key;
+		for (int r = 0; r < ROUNDS; r++) {
+			long hi = multiplyHighUnsigned(M, x0);
+			long lo = M * x0;
+			x0 = hi ^ k ^ x1;
+			x1 = lo;
+			k += W;
+		}
+		if (++counter0 == 0) {
+			counter1++;
+		}
+		buffered = x1;
+		hasBuffered = true;
+		return x0;
+	}
+
+	public int nextInt() {
+		return (int) (nextLong() >>> 32);
+	}
+
+	private static long multiplyHighUnsigned(long a, long b) {
+		return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+	}
+
+	/**
+	 * @return the stream of a new key drawn from this generator
+	 */
+	public Philox2x64 split() {
+		return new Philox2x64(nextLong());
+	}
+
+	public Kind getKind() {
+		return Kind.PHILOX2X64;
+	}
+
+	public long[] getState() {
+		return new long[] { key, counter0, counter1, buffered, hasBuffered ? 1 : 0 };
+	}
+}
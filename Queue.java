@@ -13,4 +13,29 @@ public interface Queue<E> {
 	void enqueue(E newElement);
 
 	E dequeue();
+
+	/**
+	 * @return the number of elements in the queue
+	 */
+	int size();
+
+	/**
+	 * @return the element at the front of the queue, without removing it
+	 */
+	E peek();
+
+	/**
+	 * Moves all the elements of this queue, in order, to the rear of another queue
+	 * 
+	 * @param target is the queue receiving the elements
+	 * @return the number of elements moved
+	 */
+	int drainTo(Queue<? super E> target);
+
+	/**
+	 * Adds all the given elements, in order, to the rear of the queue
+	 * 
+	 * @param elements are the elements to add
+	 */
+	void enqueueAll(Iterable<? extends E> elements);
 }
@@ -1,5 +1,3 @@
-import java.util.Random;
-
 /**
  * @author Mehrdad Sabetzadeh, University of Ottawa
  * 
@@ -13,14 +11,39 @@ public class RandomGenerator {
 	/**
 	 * Array of admissible characters in randomly generated strings (for car plates)
 	 */
-	private static final char[] ALPHANUM = { 'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M', 'N', 'O',
-			'P', 'Q', 'R', 'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' };
+	private static final char[] ALPHANUM = Car.PLATE_CHARACTERS;
+
+	/**
+	 * The default source of each thread, split from a common root on first use,
+	 * so that threads neither contend for nor share a generator
+	 */
+	private static final SplitMix64 root = new SplitMix64();
+	private static final ThreadLocal<RandomSource> defaultSource = ThreadLocal.withInitial(() -> {
+		synchronized (root) {
+			return root.split();
+		}
+	});
+
+	// Every method below comes in two forms: one drawing from the default source
+	// of the calling thread, and one drawing from a source given by the caller,
+	// so that independent simulations can each use their own seeded stream.
 
 	/**
-	 * Instance of Random class; all random quantities in this assignment will be
-	 * generated through this single instance of Random
+	 * Seeds the default source of the calling thread, so that the methods that
+	 * are not given a source draw reproducible values
+	 * 
+	 * @param seed is the seed
 	 */
-	private static Random rand = new Random();
+	public static void setSeed(long seed) {
+		defaultSource.set(new SplitMix64(seed));
+	}
+
+	/**
+	 * @return the default source of the calling thread
+	 */
+	public static RandomSource getDefaultSource() {
+		return defaultSource.get();
+	}
 
 	/**
 	 * @param probability is the probability of the event of interest occurring
@@ -35,11 +58,24 @@ public class RandomGenerator {
 	 *         unit, false otherwise
 	 */
 	public static boolean eventOccurred(Rational probability) {
+		return eventOccurred(probability, defaultSource.get());
+	}
+
+	/**
+	 * Same as eventOccurred(Rational), drawing from a given source
+	 * 
+	 * @param probability is the probability of the event of interest occurring
+	 *                    within a SINGLE simulated time unit
+	 * @param source      is the source of randomness
+	 * @return true if the event of interest occurred within the current single time
+	 *         unit, false otherwise
+	 */
+	public static boolean eventOccurred(Rational probability, java.util.random.RandomGenerator source) {
 		if (probability.numerator() <= 0 || probability.denominator() < probability.numerator()) {
 			return false;
 		}
 
-		int number = rand.nextInt(probability.denominator());
+		int number = source.nextInt(probability.denominator());
 
 		if (number < probability.numerator())
 			return true;
@@ -48,26 +84,172 @@ public class RandomGenerator {
 
 	}
 
+	/**
+	 * Same as eventOccurred(Rational), for a probability given as a double; does
+	 * not allocate
+	 * 
+	 * @param probability is the probability of the event of interest occurring
+	 *                    within a SINGLE simulated time unit
+	 * @return true if the event of interest occurred within the current single time
+	 *         unit, false otherwise
+	 */
+	public static boolean eventOccurred(double probability) {
+		return eventOccurred(probability, defaultSource.get());
+	}
+
+	/**
+	 * Same as eventOccurred(double), drawing from a given source
+	 * 
+	 * @param probability is the probability of the event of interest occurring
+	 *                    within a SINGLE simulated time unit
+	 * @param source      is the source of randomness
+	 * @return true if the event of interest occurred within the current single time
+	 *         unit, false otherwise
+	 */
+	public static boolean eventOccurred(double probability, java.util.random.RandomGenerator source) {
+		if (probability <= 0) {
+			return false;
+		}
+		return source.nextDouble() < probability;
+	}
+
+	/**
+	 * Samples how many simulated time units pass until an event occurs, when each
+	 * unit is an independent trial as in eventOccurred (geometric distribution).
+	 * 
+	 * @param probability is the probability of the event occurring within a
+	 *                    SINGLE simulated time unit
+	 * @return the number of time units up to and including the one in which the
+	 *         event occurs (at least 1), or Integer.MAX_VALUE if the event never
+	 *         occurs
+	 */
+	public static int trialsUntilEvent(Rational probability) {
+		return trialsUntilEvent(probability, defaultSource.get());
+	}
+
+	/**
+	 * Same as trialsUntilEvent(Rational), drawing from a given source
+	 * 
+	 * @param probability is the probability of the event occurring within a
+	 *                    SINGLE simulated time unit
+	 * @param source      is the source of randomness
+	 * @return the number of time units up to and including the one in which the
+	 *         event occurs (at least 1), or Integer.MAX_VALUE if the event never
+	 *         occurs
+	 */
+	public static int trialsUntilEvent(Rational probability, java.util.random.RandomGenerator source) {
+		if (probability.numerator() <= 0) {
+			return Integer.MAX_VALUE;
+		}
+		if (probability.denominator() <= probability.numerator()) {
+			return 1;
+		}
+
+		double u = 1.0 - source.nextDouble(); // in (0, 1]
+		double trials = 1 + Math.floor(Math.log(u) / Math.log1p(-probability.toDouble()));
+
+		return trials >= Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) trials;
+	}
+
+	/**
+	 * @return a uniformly distributed value in [0, 1)
+	 */
+	public static double nextUniform() {
+		return defaultSource.get().nextDouble();
+	}
+
+	/**
+	 * @param source is the source of randomness
+	 * @return a uniformly distributed value in [0, 1)
+	 */
+	public static double nextUniform(java.util.random.RandomGenerator source) {
+		return source.nextDouble();
+	}
+
 	/**
 	 * @param length is the length of the random string to generate
 	 * @return a random string with the specified length
 	 */
 	public static String generateRandomString(int length) {
 
+		java.util.random.RandomGenerator source = defaultSource.get();
 		StringBuffer buffer = new StringBuffer();
 
 		for (int i = 0; i < length; i++) {
-			buffer.append(ALPHANUM[rand.nextInt(ALPHANUM.length)]);
+			buffer.append(ALPHANUM[source.nextInt(ALPHANUM.length)]);
 		}
 
 		return buffer.toString();
 	}
 
+	/**
+	 * Same as encoding generateRandomString(length) with Car.encodePlate, without
+	 * building the String
+	 * 
+	 * @param length is the length of the random plate, at most
+	 *               Car.MAX_ENCODED_PLATE_LENGTH
+	 * @return a random encoded plate number with the specified length
+	 */
+	public static int generateRandomPlateCode(int length) {
+		return generateRandomPlateCode(length, defaultSource.get());
+	}
+
+	/**
+	 * Same as generateRandomPlateCode(int), drawing from a given source
+	 * 
+	 * @param length is the length of the random plate, at most
+	 *               Car.MAX_ENCODED_PLATE_LENGTH
+	 * @param source is the source of randomness
+	 * @return a random encoded plate number with the specified length
+	 */
+	public static int generateRandomPlateCode(int length, java.util.random.RandomGenerator source) {
+		if (length < 0 || length > Car.MAX_ENCODED_PLATE_LENGTH) {
+			throw new IllegalArgumentException("Plates of length " + length + " cannot be encoded");
+		}
+
+		int value = 0;
+		for (int i = 0; i < length; i++) {
+			value = value * ALPHANUM.length + source.nextInt(ALPHANUM.length);
+		}
+
+		return (value << 4) | length;
+	}
+
 	/**
 	 * @return An instance of Car with the car type decided probabilistically,
 	 *         according to predefined proportions
 	 */
 	public static Car generateRandomCar() {
+		return generateRandomCar(defaultSource.get());
+	}
+
+	/**
+	 * Same as generateRandomCar(), drawing from a given source
+	 * 
+	 * @param source is the source of randomness
+	 * @return An instance of Car with the car type decided probabilistically,
+	 *         according to predefined proportions
+	 */
+	public static Car generateRandomCar(java.util.random.RandomGenerator source) {
+		return new Car(generateRandomCarType(source), generateRandomPlateCode(3, source));
+	}
+
+	/**
+	 * @return a car type decided probabilistically, according to predefined
+	 *         proportions
+	 */
+	public static CarType generateRandomCarType() {
+		return generateRandomCarType(defaultSource.get());
+	}
+
+	/**
+	 * Same as generateRandomCarType(), drawing from a given source
+	 * 
+	 * @param source is the source of randomness
+	 * @return a car type decided probabilistically, according to predefined
+	 *         proportions
+	 */
+	public static CarType generateRandomCarType(java.util.random.RandomGenerator source) {
 		// Hard-coded:
 		// ELECTRIC (prob: 5%),
 		// SMALL (prob: 20%),
@@ -75,7 +257,7 @@ public class RandomGenerator {
 		// REGULAR (default).
 
 		CarType type;
-		int number = rand.nextInt(100);
+		int number = source.nextInt(100);
 
 		if (number < 5)
 			type = CarType.ELECTRIC;
@@ -86,6 +268,6 @@ public class RandomGenerator {
 		else
 			type = CarType.REGULAR;
 
-		return new Car(type, generateRandomString(3));
+		return type;
 	}
 }
@@ -0,0 +1,79 @@
+/**
+ * A fast source of random numbers for simulations. A source is seeded
+ * explicitly, can be split into independent streams, so that simulators never
+ * share a generator, and has a state that can be saved and restored, so that a
+ * simulation drawing from it can be checkpointed. Sources are not thread-safe:
+ * each thread or simulator draws from its own stream.
+ */
+public interface RandomSource extends java.util.random.RandomGenerator {
+
+	/**
+	 * The available generators
+	 */
+	enum Kind {
+		/**
+		 * SplitMix64, with the same values as java.util.SplittableRandom
+		 */
+		SPLITMIX64,
+
+		/**
+		 * xoroshiro128++, seeded like the JDK's Xoroshiro128PlusPlus
+		 */
+		XOROSHIRO128PLUSPLUS,
+
+		/**
+		 * Philox2x64-10, a counter-based generator
+		 */
+		PHILOX2X64;
+	}
+
+	/**
+	 * @param kind is the generator
+	 * @param seed is the seed
+	 * @return a generator of the given kind; generators of the same kind and seed
+	 *         produce the same values
+	 */
+	static RandomSource create(Kind kind, long seed) {
+		switch (kind) {
+		case XOROSHIRO128PLUSPLUS:
+			return new Xoroshiro128PlusPlus(seed);
+		case PHILOX2X64:
+			return new Philox2x64(seed);
+		default:
+			return new SplitMix64(seed);
+		}
+	}
+
+	/**
+	 * @param kind  is the generator
+	 * @param state is a state returned by getState for a generator of that kind
+	 * @return a generator producing the same values as the generator whose state
+	 *         was taken
+	 */
+	static RandomSource restore(Kind kind, long[] state) {
+		switch (kind) {
+		case XOROSHIRO128PLUSPLUS:
+			return new Xoroshiro128PlusPlus(state[0], state[1]);
+		case PHILOX2X64:
+			return new Philox2x64(state);
+		default:
+			return new SplitMix64(state[0], state[1]);
+		}
+	}
+
+	/**
+	 * @return the kind of generator
+	 */
+	Kind getKind();
+
+	/**
+	 * @return a copy of the state of the generator
+	 */
+	long[] getState();
+
+	/**
+	 * @return a new generator whose values are independent of this one's; this
+	 *         generator moves on as well
+	 */
+	RandomSource split();
+}
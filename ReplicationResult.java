@@ -0,0 +1,91 @@
+/**
+ * The end-of-run metrics of one simulation replication.
+ */
+public class ReplicationResult {
+
+	private int queueLength;
+	private int occupancy;
+	private int entered;
+	private int exited;
+	private int steps;
+	private double meanQueueLength;
+	private double meanOccupancy;
+	private double meanWaitTime;
+
+	/**
+	 * @param sim   is a simulator whose simulation has completed
+	 * @param steps is the number of steps that were simulated
+	 */
+	public ReplicationResult(Simulator sim, int steps) {
+		this.queueLength = sim.getIncomingQueueLength();
+		this.occupancy = sim.getLot().getTotalOccupancy();
+		this.entered = sim.getEnteredCount();
+		this.exited = sim.getExitedCount();
+		this.steps = steps;
+		SimulationMetrics metrics = sim.getMetrics();
+		if (metrics != null) {
+			this.meanQueueLength = metrics.getQueueLength().getMean();
+			this.meanOccupancy = metrics.getOccupancy().getMean();
+			this.meanWaitTime = metrics.getWaitTime().getMean();
+		}
+	}
+
+	/**
+	 * @return the number of cars waiting in front of the lot at the end of the run
+	 */
+	public int getQueueLength() {
+		return queueLength;
+	}
+
+	/**
+	 * @return the number of cars parked in the lot at the end of the run
+	 */
+	public int getOccupancy() {
+		return occupancy;
+	}
+
+	/**
+	 * @return the number of cars that entered the lot
+	 */
+	public int getEntered() {
+		return entered;
+	}
+
+	/**
+	 * @return the number of cars that exited the lot
+	 */
+	public int getExited() {
+		return exited;
+	}
+
+	/**
+	 * @return the number of cars that entered the lot per simulated hour
+	 */
+	public double getThroughputPerHour() {
+		return (steps == 0) ? 0.0 : entered * 3600.0 / steps;
+	}
+
+	/**
+	 * @return the time-weighted mean number of cars waiting in front of the lot
+	 *         (0 if the metrics were not collected)
+	 */
+	public double getMeanQueueLength() {
+		return meanQueueLength;
+	}
+
+	/**
+	 * @return the time-weighted mean number of cars parked in the lot (0 if the
+	 *         metrics were not collected)
+	 */
+	public double getMeanOccupancy() {
+		return meanOccupancy;
+	}
+
+	/**
+	 * @return the mean number of seconds the cars that parked waited (0 if the
+	 *         metrics were not collected)
+	 */
+	public double getMeanWaitTime() {
+		return meanWaitTime;
+	}
+}
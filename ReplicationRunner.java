@@ -0,0 +1,223 @@
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs independent replications of a simulation on all the available cores and
+ * aggregates their end-of-run metrics.
+ * 
+ * Each replication simulates its own empty copy of the lot design and draws
+ * from its own stream, split from one seeded root generator before any
+ * replication starts. The results therefore only depend on the seed, not on how
+ * the replications are scheduled on threads.
+ */
+public class ReplicationRunner {
+
+	/**
+	 * The aggregated metrics of a set of replications
+	 */
+	public static class Summary {
+		private final ReplicationResult[] results;
+		private final SummaryStatistics queueLength = new SummaryStatistics();
+		private final SummaryStatistics occupancy = new SummaryStatistics();
+		private final SummaryStatistics throughput = new SummaryStatistics();
+		private final SummaryStatistics meanQueueLength = new SummaryStatistics();
+		private final SummaryStatistics meanOccupancy = new SummaryStatistics();
+		private final SummaryStatistics meanWaitTime = new SummaryStatistics();
+
+		/**
+		 * @param results are the results of the replications
+		 */
+		public Summary(ReplicationResult[] results) {
+			this.results = results;
+			for (ReplicationResult r : results) {
+				queueLength.add(r.getQueueLength());
+				occupancy.add(r.getOccupancy());
+				throughput.add(r.getThroughputPerHour());
+				meanQueueLength.add(r.getMeanQueueLength());
+				meanOccupancy.add(r.getMeanOccupancy());
+				meanWaitTime.add(r.getMeanWaitTime());
+			}
+		}
+
+		public ReplicationResult[] getResults() {
+			return results.clone();
+		}
+
+		public SummaryStatistics getQueueLength() {
+			return queueLength;
+		}
+
+		public SummaryStatistics getOccupancy() {
+			return occupancy;
+		}
+
+		public SummaryStatistics getThroughput() {
+			return throughput;
+		}
+
+		public SummaryStatistics getMeanQueueLength() {
+			return meanQueueLength;
+		}
+
+		public SummaryStatistics getMeanOccupancy() {
+			return meanOccupancy;
+		}
+
+		public SummaryStatistics getMeanWaitTime() {
+			return meanWaitTime;
+		}
+
+		public String toString() {
+			return "replications: " + results.length + System.lineSeparator() + "final queue length: " + queueLength
+					+ System.lineSeparator() + "final occupancy: " + occupancy + System.lineSeparator()
+					+ "throughput (cars/h): " + throughput + System.lineSeparator() + "mean queue length: "
+					+ meanQueueLength + System.lineSeparator() + "mean occupancy: " + meanOccupancy
+					+ System.lineSeparator() + "mean wait time (s): " + meanWaitTime;
+		}
+	}
+
+	/**
+	 * Runs replications of a simulation in parallel
+	 * 
+	 * @param design             is the lot design to simulate (it is copied, not
+	 *                           modified)
+	 * @param perHourArrivalRate is the HOURLY rate at which cars show up
+	 * @param steps              is the number of steps of each replication
+	 * @param mode               is how the simulations are advanced
+	 * @param replications       is the number of replications
+	 * @param seed               is the seed from which the replication streams are
+	 *                           derived
+	 * @param threads            is the number of worker threads
+	 * @return the aggregated metrics
+	 * @throws Exception if a replication fails
+	 */
+	public static Summary run(ParkingLot design, int perHourArrivalRate, int steps, SimulationMode mode,
+			int replications, long seed, int threads) throws Exception {
+		return run(design, perHourArrivalRate, steps, mode, AdmissionPolicy.FIFO, replications, seed, threads);
+	}
+
+	/**
+	 * Runs replications of a simulation in parallel
+	 * 
+	 * @param design             is the lot design to simulate (it is copied, not
+	 *                           modified)
+	 * @param perHourArrivalRate is the HOURLY rate at which cars show up
+	 * @param steps              is the number of steps of each replication
+	 * @param mode               is how the simulations are advanced
+	 * @param policy             is how the waiting cars are let in
+	 * @param replications       is the number of replications
+	 * @param seed               is the seed from which the replication streams are
+	 *                           derived
+	 * @param threads            is the number of worker threads
+	 * @return the aggregated metrics
+	 * @throws Exception if a replication fails
+	 */
+	public static Summary run(ParkingLot design, int perHourArrivalRate, int steps, SimulationMode mode,
+			AdmissionPolicy policy, int replications, long seed, int threads) throws Exception {
+
+		RandomSource root = new SplitMix64(seed);
+		RandomSource[] streams = new RandomSource[replications];
+		for (int r = 0; r < replications; r++) {
+			streams[r] = root.split();
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+		try {
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			Future<ReplicationResult>[] futures = new Future[replications];
+			for (int r = 0; r < replications; r++) {
+				final RandomSource stream = streams[r];
+				futures[r] = pool.submit(() -> runReplication(design, perHourArrivalRate, steps, mode, policy,
+						stream));
+			}
+
+			ReplicationResult[] results = new ReplicationResult[replications];
+			for (int r = 0; r < replications; r++) {
+				results[r] = futures[r].get();
+			}
+			return new Summary(results);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Runs one replication, silently, on the calling thread
+	 * 
+	 * @param design             is the lot design to simulate (it is copied, not
+	 *                           modified)
+	 * @param perHourArrivalRate is the HOURLY rate at which cars show up
+	 * @param steps              is the number of steps to simulate
+	 * @param mode               is how the simulation is advanced
+	 * @param stream             is the source of randomness of the replication
+	 * @return the metrics of the replication
+	 */
+	public static ReplicationResult runReplication(ParkingLot design, int perHourArrivalRate, int steps,
+			SimulationMode mode, java.util.random.RandomGenerator stream) {
+		return runReplication(design, perHourArrivalRate, steps, mode, AdmissionPolicy.FIFO, stream);
+	}
+
+	/**
+	 * Runs one replication, silently, on the calling thread
+	 * 
+	 * @param design             is the lot design to simulate (it is copied, not
+	 *                           modified)
+	 * @param perHourArrivalRate is the HOURLY rate at which cars show up
+	 * @param steps              is the number of steps to simulate
+	 * @param mode               is how the simulation is advanced
+	 * @param policy             is how the waiting cars are let in
+	 * @param stream             is the source of randomness of the replication
+	 * @return the metrics of the replication
+	 */
+	public static ReplicationResult runReplication(ParkingLot design, int perHourArrivalRate, int steps,
+			SimulationMode mode, AdmissionPolicy policy, java.util.random.RandomGenerator stream) {
+		Simulator sim = new Simulator(new ParkingLot(design), perHourArrivalRate, steps, mode, stream);
+		sim.setEventSink(NullEventSink.INSTANCE);
+		sim.setAdmissionPolicy(policy);
+		sim.simulate();
+		return new ReplicationResult(sim, steps);
+	}
+
+	/**
+	 * Same as run(design, perHourArrivalRate, steps, mode, replications, seed,
+	 * threads) with one thread per available processor
+	 */
+	public static Summary run(ParkingLot design, int perHourArrivalRate, int steps, SimulationMode mode,
+			int replications, long seed) throws Exception {
+		return run(design, perHourArrivalRate, steps, mode, replications, seed,
+				Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Runs replications of a 24h simulation and prints the aggregated metrics
+	 * 
+	 * @param args the lot-design filename, the hourly rate of arrival, the number of
+	 *             replications, and optionally the simulation mode and seed
+	 * @throws Exception
+	 */
+	public static void main(String args[]) throws Exception {
+
+		if (args.length < 3) {
+			System.out.println(
+					"Usage: java ReplicationRunner <lot-design filename> <hourly rate of arrival> <replications> [mode] [seed]");
+			System.out.println("Example: java ReplicationRunner parking.inf 11 100 NEXT_EVENT 42");
+			return;
+		}
+
+		ParkingLot design = new ParkingLot(args[0]);
+		int rate = Integer.parseInt(args[1]);
+		int replications = Integer.parseInt(args[2]);
+		SimulationMode mode = (args.length > 3) ? SimulationMode.valueOf(args[3].toUpperCase())
+				: SimulationMode.NEXT_EVENT;
+		long seed = (args.length > 4) ? Long.parseLong(args[4]) : System.nanoTime();
+
+		long start = System.currentTimeMillis();
+		Summary summary = run(design, rate, Simulator.SIMULATION_DURATION, mode, replications, seed);
+		long end = System.currentTimeMillis();
+
+		System.out.println("seed: " + seed);
+		System.out.println(summary);
+		System.out.println("Replications took " + (end - start) + "ms.");
+	}
+}
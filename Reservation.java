@@ -0,0 +1,77 @@
+/**
+ * A spot booked in advance for the time window [start, end). The spot is held
+ * for the whole window: no walk-in car can park there, whether the car holding
+ * the reservation is parked or not.
+ */
+public class Reservation {
+
+	private final int id;
+	private final int position;
+	private final int numSpotsPerRow;
+	private final CarType carType;
+	private final int start;
+	private final int end;
+
+	/**
+	 * @param id             is the number of the reservation in its book
+	 * @param position       is the position i * numSpotsPerRow + j of the spot
+	 * @param numSpotsPerRow is the number of spots per row of the lot
+	 * @param carType        is the type of car the spot was booked for
+	 * @param start          is the (simulated) time the window starts
+	 * @param end            is the (simulated) time the window ends, excluded
+	 */
+	Reservation(int id, int position, int numSpotsPerRow, CarType carType, int start, int end) {
+		this.id = id;
+		this.position = position;
+		this.numSpotsPerRow = numSpotsPerRow;
+		this.carType = carType;
+		this.start = start;
+		this.end = end;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * @return the position i * numSpotsPerRow + j of the spot
+	 */
+	public int getPosition() {
+		return position;
+	}
+
+	public int getRow() {
+		return position / numSpotsPerRow;
+	}
+
+	public int getSpot() {
+		return position % numSpotsPerRow;
+	}
+
+	public CarType getCarType() {
+		return carType;
+	}
+
+	public int getStart() {
+		return start;
+	}
+
+	public int getEnd() {
+		return end;
+	}
+
+	/**
+	 * @param time is a (simulated) time
+	 * @return true if the window of the reservation contains the time
+	 */
+	public boolean covers(int time) {
+		return start <= time && time < end;
+	}
+
+	/**
+	 * Returns a string representation of the reservation
+	 */
+	public String toString() {
+		return "#" + id + " " + carType + " at (" + getRow() + "," + getSpot() + ") [" + start + ", " + end + ")";
+	}
+}
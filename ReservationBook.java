@@ -0,0 +1,507 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+/**
+ * The advance reservations of a parking lot. Each spot has a calendar of its
+ * reservations, a TreeMap from start time to reservation; the windows booked in
+ * a spot never overlap, so whether a spot is free for a window is decided by
+ * its neighbouring entries in O(log n). Finding a spot for a window visits the
+ * compatible spots, smallest spot type first and from the last spot in
+ * row-major order back, until one is free; reservations thereby gather away
+ * from the spots the allocation strategies give walk-in cars first.
+ *
+ * A reservation holds its spot from a lead time before its window starts: the
+ * lot claims the spot in its allocation index, so walk-in cars are never given
+ * it, and releases it at the end of the window. The lead time defaults to
+ * Simulator.MAX_PARKING_DURATION, so a walk-in car parked before the hold
+ * leaves before the window starts; a spot is only booked for a window whose
+ * hold has begun if it is empty. The holds and ends are kept in two queues and
+ * applied lazily, when the lot is asked to park a car at a later time.
+ * Cancelled reservations are skipped when their entries come up. A reservation
+ * is forgotten once its window has ended.
+ *
+ * A car staying longer than the lead time may still be in the spot when a
+ * window starts; the reservation is then moved to another compatible spot free
+ * for the rest of its window, if there is one, when its car arrives.
+ */
+public class ReservationBook {
+
+	private static final CarType[] CAR_TYPES = CarType.values();
+
+	private final ParkingLot lot;
+
+	/**
+	 * Calendar of each spot, by position, created on its first reservation
+	 */
+	private final TreeMap<Integer, Reservation>[] calendars;
+
+	/**
+	 * The positions of the parkable spots of each type, by CarType ordinal
+	 */
+	private final int[][] spotsByType;
+
+	/**
+	 * Reservations whose window has not ended, by id
+	 */
+	private final Map<Integer, Reservation> reservations = new HashMap<>();
+
+	/**
+	 * Number of reservations holding each spot, by position; the holds of
+	 * back-to-back windows overlap by the lead time
+	 */
+	private final int[] holds;
+
+	/**
+	 * Starts of the holds not reached yet, and ends of the windows held, as
+	 * (time, id) entries
+	 */
+	private final DepartureQueue starts = new DepartureQueue();
+	private final DepartureQueue ends = new DepartureQueue();
+
+	/**
+	 * How long before its window a reservation holds its spot, in seconds
+	 */
+	private int leadTime = Simulator.MAX_PARKING_DURATION;
+
+	private int nextId = 1;
+
+	/**
+	 * The latest time the reservations were brought up to
+	 */
+	private int clock = -1;
+
+	/**
+	 * @param lot is the lot whose spots are booked; it must have no other book
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	ReservationBook(ParkingLot lot) {
+		this.lot = lot;
+		int numSpots = lot.getNumRows() * lot.getNumSpotsPerRow();
+		calendars = new TreeMap[numSpots];
+		holds = new int[numSpots];
+
+		int[] counts = new int[CAR_TYPES.length];
+		for (int position = 0; position < numSpots; position++)
+			counts[typeAt(position).ordinal()]++;
+		spotsByType = new int[CAR_TYPES.length][];
+		for (int t = 0; t < CAR_TYPES.length; t++) {
+			spotsByType[t] = new int[counts[t]];
+			counts[t] = 0;
+		}
+		for (int position = 0; position < numSpots; position++) {
+			int t = typeAt(position).ordinal();
+			spotsByType[t][counts[t]++] = position;
+		}
+	}
+
+	private CarType typeAt(int position) {
+		return lot.getSpotTypeAt(position / lot.getNumSpotsPerRow(), position % lot.getNumSpotsPerRow());
+	}
+
+	/**
+	 * @return how long before its window a reservation holds its spot, in
+	 *         seconds
+	 */
+	public int getLeadTime() {
+		return leadTime;
+	}
+
+	/**
+	 * Sets how long before its window a reservation holds its spot. Walk-in cars
+	 * staying longer than the lead time may delay the holders of the spot they
+	 * are given.
+	 *
+	 * @param leadTime is the lead time, in seconds
+	 * @throws IllegalStateException if reservations have been booked
+	 */
+	public void setLeadTime(int leadTime) {
+		if (leadTime < 0) {
+			throw new IllegalArgumentException("Invalid lead time " + leadTime);
+		}
+		if (!reservations.isEmpty()) {
+			throw new IllegalStateException("The lead time cannot change once reservations are booked");
+		}
+		this.leadTime = leadTime;
+	}
+
+	/**
+	 * @param start is the start of a window
+	 * @return the time its spot is held from
+	 */
+	private int holdFrom(int start) {
+		return Math.max(0, start - leadTime);
+	}
+
+	/**
+	 * @param position is the position of a spot
+	 * @param start    is the start of a window
+	 * @param end      is the end of the window, excluded
+	 * @return true if no reservation of the spot overlaps the window
+	 */
+	public boolean isAvailable(int position, int start, int end) {
+		TreeMap<Integer, Reservation> calendar = calendars[position];
+		if (calendar == null) {
+			return true;
+		}
+		Map.Entry<Integer, Reservation> before = calendar.floorEntry(start);
+		if (before != null && before.getValue().getEnd() > start) {
+			return false;
+		}
+		Integer after = calendar.higherKey(start);
+		return after == null || after >= end;
+	}
+
+	/**
+	 * @param position is the position of a spot
+	 * @param time     is a (simulated) time
+	 * @return the reservation of the spot whose window contains the time, or null
+	 */
+	public Reservation getReservationAt(int position, int time) {
+		TreeMap<Integer, Reservation> calendar = calendars[position];
+		if (calendar == null) {
+			return null;
+		}
+		Map.Entry<Integer, Reservation> entry = calendar.floorEntry(time);
+		return (entry != null && entry.getValue().covers(time)) ? entry.getValue() : null;
+	}
+
+	/**
+	 * Finds a spot a car can book for a window
+	 *
+	 * @param carType is the type of the car
+	 * @param start   is the start of the window
+	 * @param end     is the end of the window, excluded
+	 * @return the position of the last compatible spot in row-major order,
+	 *         smallest type first, that is free for the whole window, or -1 if
+	 *         there is none
+	 */
+	public int findAvailable(CarType carType, int start, int end) {
+		for (CarType spotType : CAR_TYPES) {
+			if (ParkingLot.fits(carType, spotType)) {
+				int[] spots = spotsByType[spotType.ordinal()];
+				for (int k = spots.length - 1; k >= 0; k--) {
+					int position = spots[k];
+					// a window held already also needs the spot to be empty now
+					if (isAvailable(position, start, end)
+							&& (holdFrom(start) > clock || !lot.isOccupied(position / lot.getNumSpotsPerRow(),
+									position % lot.getNumSpotsPerRow()))) {
+						return position;
+					}
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Books a spot for a car
+	 *
+	 * @param carType is the type of the car
+	 * @param start   is the (simulated) time the window starts
+	 * @param end     is the (simulated) time the window ends, excluded
+	 * @return the reservation, or null if no compatible spot is free for the
+	 *         whole window
+	 */
+	public Reservation book(CarType carType, int start, int end) {
+		if (start < 0 || end <= start) {
+			throw new IllegalArgumentException("Invalid reservation window [" + start + ", " + end + ")");
+		}
+		if (end <= clock) {
+			return null; // over already
+		}
+		int position = findAvailable(carType, start, end);
+		if (position < 0) {
+			return null;
+		}
+		Reservation r = new Reservation(nextId++, position, lot.getNumSpotsPerRow(), carType, start, end);
+		add(r);
+		return r;
+	}
+
+	private void add(Reservation r) {
+		int position = r.getPosition();
+		if (calendars[position] == null) {
+			calendars[position] = new TreeMap<>();
+		}
+		calendars[position].put(r.getStart(), r);
+		reservations.put(r.getId(), r);
+		if (holdFrom(r.getStart()) <= clock) {
+			activate(r);
+		} else {
+			starts.add(holdFrom(r.getStart()), r.getId());
+		}
+	}
+
+	/**
+	 * Cancels a reservation; its spot is released if it was held
+	 *
+	 * @param id is the number of the reservation
+	 * @return true if the reservation was cancelled, false if it is unknown or
+	 *         its window has ended
+	 */
+	public boolean cancel(int id) {
+		Reservation r = reservations.remove(id);
+		if (r == null) {
+			return false;
+		}
+		calendars[r.getPosition()].remove(r.getStart());
+		if (holdFrom(r.getStart()) <= clock) {
+			release(r.getPosition());
+		}
+		return true;
+	}
+
+	/**
+	 * Moves a reservation whose window has started to another compatible spot,
+	 * empty and free for the rest of the window
+	 *
+	 * @param id is the number of the reservation
+	 * @return the reservation of the new spot, with the same number and a window
+	 *         starting at the current time, or null if the reservation is unknown
+	 *         or no spot is free
+	 */
+	Reservation move(int id) {
+		Reservation r = reservations.get(id);
+		if (r == null || r.getStart() > clock) {
+			return null;
+		}
+		int position = findAvailable(r.getCarType(), clock, r.getEnd());
+		if (position < 0) {
+			return null;
+		}
+		cancel(id);
+		Reservation moved = new Reservation(id, position, lot.getNumSpotsPerRow(), r.getCarType(), clock, r.getEnd());
+		add(moved);
+		return moved;
+	}
+
+	/**
+	 * @param id is the number of a reservation
+	 * @return the reservation, or null if it is unknown, cancelled or its window
+	 *         has ended
+	 */
+	public Reservation get(int id) {
+		return reservations.get(id);
+	}
+
+	/**
+	 * @return the number of reservations whose window has not ended
+	 */
+	public int size() {
+		return reservations.size();
+	}
+
+	/**
+	 * @return the latest time the reservations were brought up to, -1 if none
+	 */
+	public int getClock() {
+		return clock;
+	}
+
+	/**
+	 * Holds the spots of the windows starting within the lead time and releases
+	 * those of the windows ended by a given time; earlier times are ignored. At
+	 * equal times, windows end before other holds start.
+	 *
+	 * @param time is the (simulated) time
+	 */
+	public void advanceTo(int time) {
+		if (time <= clock) {
+			return;
+		}
+		clock = time;
+		while (true) {
+			boolean ending = !ends.isEmpty() && ends.peekTime() <= time;
+			boolean starting = !starts.isEmpty() && starts.peekTime() <= time;
+			if (ending && (!starting || ends.peekTime() <= starts.peekTime())) {
+				Reservation r = reservations.get(ends.poll());
+				if (r != null) { // not cancelled
+					reservations.remove(r.getId());
+					calendars[r.getPosition()].remove(r.getStart());
+					release(r.getPosition());
+				}
+			} else if (starting) {
+				Reservation r = reservations.get(starts.poll());
+				if (r != null) {
+					activate(r);
+				}
+			} else {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * @return the time the next window held ends, or Integer.MAX_VALUE if none
+	 *         is held; the window may have been cancelled since
+	 */
+	int nextRelease() {
+		return ends.isEmpty() ? Integer.MAX_VALUE : ends.peekTime();
+	}
+
+	private void activate(Reservation r) {
+		if (holds[r.getPosition()]++ == 0) {
+			lot.hold(r.getPosition());
+		}
+		ends.add(r.getEnd(), r.getId());
+	}
+
+	private void release(int position) {
+		if (--holds[position] == 0) {
+			lot.unhold(position);
+		}
+	}
+
+	/**
+	 * Writes the reservations whose window has not ended
+	 *
+	 * @param out is the stream written to
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void write(DataOutputStream out) throws IOException {
+		out.writeInt(clock);
+		out.writeInt(leadTime);
+		out.writeInt(nextId);
+		out.writeInt(reservations.size());
+		for (Reservation r : reservations.values()) {
+			out.writeInt(r.getId());
+			out.writeInt(r.getPosition());
+			out.writeByte(r.getCarType().ordinal());
+			out.writeInt(r.getStart());
+			out.writeInt(r.getEnd());
+		}
+	}
+
+	/**
+	 * Reads reservations written by write into the empty book of a lot, holding
+	 * the spots of the windows held
+	 *
+	 * @param in   is the stream read from
+	 * @param book is the book, with no reservations
+	 * @throws IOException if the stream cannot be read
+	 */
+	static void read(DataInputStream in, ReservationBook book) throws IOException {
+		int clock = in.readInt();
+		book.leadTime = in.readInt();
+		book.nextId = in.readInt();
+		for (int k = in.readInt(); k > 0; k--) {
+			int id = in.readInt();
+			int position = in.readInt();
+			CarType carType = CAR_TYPES[in.readByte()];
+			int start = in.readInt();
+			int end = in.readInt();
+			book.add(new Reservation(id, position, book.lot.getNumSpotsPerRow(), carType, start, end));
+		}
+		book.advanceTo(clock);
+	}
+
+	/**
+	 * Books random reservations in a lot, timing the bookings and the
+	 * availability queries, and then replays the days booked minute by minute:
+	 * reservation holders arrive at the start of their window and leave before
+	 * its end, and walk-in cars arrive at random and stay up to
+	 * Simulator.MAX_PARKING_DURATION. Every walk-in car is checked against the
+	 * calendars, so one parked in a spot reserved before it leaves is reported,
+	 * next to the holders finding no spot free.
+	 *
+	 * @param args the lot-design filename, the number of reservations, the number
+	 *             of days and the seed
+	 * @throws Exception
+	 */
+	public static void main(String args[]) throws Exception {
+
+		if (args.length < 1) {
+			System.out.println("Usage: java ReservationBook <lot-design filename> [reservations] [days] [seed]");
+			System.out.println("Example: java ReservationBook test.inf 200000 365 42");
+			return;
+		}
+
+		ParkingLot lot = new ParkingLot(args[0]);
+		int count = (args.length > 1) ? Integer.parseInt(args[1]) : 100000;
+		int days = (args.length > 2) ? Integer.parseInt(args[2]) : 365;
+		SplittableRandom random = new SplittableRandom((args.length > 3) ? Long.parseLong(args[3]) : 42);
+		int horizon = days * 86400;
+		CarType[] parkable = { CarType.ELECTRIC, CarType.SMALL, CarType.REGULAR, CarType.LARGE };
+
+		ReservationBook book = lot.getReservations();
+		Reservation[] booked = new Reservation[count];
+		int accepted = 0;
+		long begin = System.nanoTime();
+		for (int k = 0; k < count; k++) {
+			int start = random.nextInt(horizon);
+			int end = start + 1800 + random.nextInt(4 * 3600);
+			Reservation r = book.book(parkable[random.nextInt(parkable.length)], start, end);
+			if (r != null) {
+				booked[accepted++] = r;
+			}
+		}
+		long booking = System.nanoTime() - begin;
+
+		begin = System.nanoTime();
+		int available = 0;
+		for (int k = 0; k < count; k++) {
+			int start = random.nextInt(horizon);
+			if (book.isAvailable(random.nextInt(lot.getNumRows() * lot.getNumSpotsPerRow()), start, start + 3600)) {
+				available++;
+			}
+		}
+		long querying = System.nanoTime() - begin;
+
+		System.out.println("Capacity: " + lot.getTotalCapacity() + ", days: " + days + ", lead time: "
+				+ book.getLeadTime() + "s");
+		System.out.println(String.format("booked %d of %d in %.0fms (%.2fus each), %d queries in %.0fms (%.2fus each, %d free)",
+				accepted, count, booking / 1e6, booking / 1e3 / count, count, querying / 1e6, querying / 1e3 / count,
+				available));
+
+		// the holders, in the order of their windows
+		java.util.Arrays.sort(booked, 0, accepted, (a, b) -> Integer.compare(a.getStart(), b.getStart()));
+		DepartureQueue departures = new DepartureQueue();
+		int next = 0;
+		long holders = 0, moved = 0, displaced = 0, walkIns = 0, turnedAway = 0, violations = 0;
+		for (int time = 0; time < horizon; time += 60) {
+			while (!departures.isEmpty() && departures.peekTime() <= time) {
+				int position = departures.poll();
+				lot.remove(position / lot.getNumSpotsPerRow(), position % lot.getNumSpotsPerRow());
+			}
+			for (; next < accepted && booked[next].getStart() <= time; next++) {
+				Reservation r = booked[next];
+				Car car = new Car(r.getCarType(), random.nextInt(1 << 20) << 4 | 4);
+				int position = lot.parkReserved(r.getId(), car, time);
+				if (position >= 0) {
+					holders++;
+					if (position != r.getPosition()) {
+						moved++;
+					}
+					departures.add(time + random.nextInt(r.getEnd() - time), position);
+				} else {
+					displaced++;
+				}
+			}
+			if (random.nextInt(4) == 0) {
+				Car car = new Car(parkable[random.nextInt(parkable.length)], random.nextInt(1 << 20) << 4 | 4);
+				int position = lot.attemptParkingAt(car, time);
+				if (position < 0) {
+					turnedAway++;
+				} else {
+					walkIns++;
+					int departure = time + 600 + random.nextInt(Simulator.MAX_PARKING_DURATION - 600);
+					if (!book.isAvailable(position, time, departure)) {
+						violations++;
+					}
+					departures.add(departure, position);
+				}
+			}
+		}
+
+		System.out.println("holders parked: " + holders + " (moved to another spot: " + moved + ")");
+		System.out.println("walk-ins parked: " + walkIns + ", turned away: " + turnedAway);
+		System.out.println("walk-ins parked in a spot reserved before they leave: " + violations
+				+ ", holders displaced (no spot free): " + displaced);
+		System.out.println("reservations left: " + book.size());
+	}
+}
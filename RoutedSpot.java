@@ -0,0 +1,29 @@
+/**
+ * A car routed from one lot to another because it waited too long. The
+ * timestamp is the second at which the car reaches the lot it is routed to.
+ */
+public class RoutedSpot extends Spot {
+
+	/**
+	 * Number of times the car has been routed, including this time
+	 */
+	private int hops;
+
+	/**
+	 * @param car       is the car routed
+	 * @param timestamp is the second at which the car reaches the next lot
+	 * @param hops      is the number of times the car has been routed, including
+	 *                  this time
+	 */
+	public RoutedSpot(Car car, int timestamp, int hops) {
+		super(car, timestamp);
+		this.hops = hops;
+	}
+
+	/**
+	 * @return the number of times the car has been routed, including this time
+	 */
+	public int getHops() {
+		return hops;
+	}
+}
@@ -0,0 +1,175 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Checkpoints of a running Simulator: a header (magic number and version)
+ * followed by the state written by Simulator.write. A checkpoint can be saved to
+ * a file, to resume a long simulation after a crash, or kept in memory, to fork
+ * several what-if branches from the same warmed-up state. A restored simulation
+ * continues exactly as the original one would have.
+ */
+public class SimulationCheckpoint {
+
+	public static final int MAGIC = 0x53494D43; // "SIMC"
+	public static final int VERSION = 5;
+
+	/**
+	 * Captures the state of a started simulation
+	 *
+	 * @param sim is the simulation; its source of randomness must be a
+	 *            RandomSource
+	 * @return the checkpoint
+	 */
+	public static byte[] capture(Simulator sim) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			sim.write(out);
+		} catch (IOException e) {
+			throw new IllegalStateException(e); // not thrown by a ByteArrayOutputStream
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Restores a simulation from a checkpoint; each call returns an independent
+	 * simulation
+	 *
+	 * @param checkpoint is the checkpoint, as returned by capture
+	 * @param storage    is how the occupancy of the spots of the lot is stored
+	 * @return the simulation, to be continued with advanceTo
+	 * @throws IOException if the checkpoint is not valid
+	 */
+	public static Simulator restore(byte[] checkpoint, OccupancyStore.Kind storage) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(checkpoint));
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a simulation checkpoint");
+		}
+		int version = in.readInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported checkpoint version: " + version);
+		}
+		return Simulator.read(in, storage);
+	}
+
+	/**
+	 * Saves the state of a started simulation to a file. The checkpoint is
+	 * written to a temporary file first and then moved, so a crash while saving
+	 * leaves the previous checkpoint intact.
+	 *
+	 * @param sim      is the simulation; its source of randomness must be a
+	 *                 RandomSource
+	 * @param filename is the name of the file
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void save(Simulator sim, String filename) throws IOException {
+		Path target = Paths.get(filename).toAbsolutePath();
+		Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+		Files.write(temporary, capture(sim));
+		Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Restores a simulation saved to a file
+	 *
+	 * @param filename is the name of the file
+	 * @return the simulation, to be continued with advanceTo
+	 * @throws IOException if the file cannot be read or is not a checkpoint
+	 */
+	public static Simulator load(String filename) throws IOException {
+		return restore(Files.readAllBytes(Paths.get(filename)), OccupancyStore.Kind.OBJECT);
+	}
+
+	/**
+	 * Checks that a simulation saved after a warm-up and resumed from its file
+	 * ends exactly as the same simulation run without interruption, and then
+	 * forks branches from the warmed-up state, each with its own stream.
+	 *
+	 * @param args the lot-design filename, the hourly rate of arrival, the
+	 *             warm-up in hours, and optionally the number of branches, the
+	 *             simulation mode, the seed, the checkpoint filename and the
+	 *             generator (a RandomSource.Kind)
+	 * @throws Exception
+	 */
+	public static void main(String args[]) throws Exception {
+
+		if (args.length < 3) {
+			System.out.println(
+					"Usage: java SimulationCheckpoint <lot-design filename> <hourly rate of arrival> <warm-up hours> [branches] [mode] [seed] [checkpoint filename] [generator]");
+			System.out.println("Example: java SimulationCheckpoint parking.inf 11 6 4 NEXT_EVENT 42 lot.ckpt XOROSHIRO128PLUSPLUS");
+			return;
+		}
+
+		ParkingLot design = new ParkingLot(args[0]);
+		int rate = Integer.parseInt(args[1]);
+		int warmUp = Integer.parseInt(args[2]) * 3600;
+		int branches = (args.length > 3) ? Integer.parseInt(args[3]) : 4;
+		SimulationMode mode = (args.length > 4) ? SimulationMode.valueOf(args[4].toUpperCase())
+				: SimulationMode.NEXT_EVENT;
+		long seed = (args.length > 5) ? Long.parseLong(args[5]) : System.nanoTime();
+		String filename = (args.length > 6) ? args[6] : "simulation.ckpt";
+		RandomSource.Kind generator = (args.length > 7) ? RandomSource.Kind.valueOf(args[7].toUpperCase())
+				: RandomSource.Kind.SPLITMIX64;
+
+		System.out.println("seed: " + seed);
+
+		// uninterrupted
+		Simulator whole = new Simulator(new ParkingLot(design), rate, Simulator.SIMULATION_DURATION, mode,
+				RandomSource.create(generator, seed));
+		whole.setVerbose(false);
+		whole.simulate();
+
+		// interrupted after the warm-up, and resumed from the file
+		Simulator warm = new Simulator(new ParkingLot(design), rate, Simulator.SIMULATION_DURATION, mode,
+				RandomSource.create(generator, seed));
+		warm.setVerbose(false);
+		warm.start();
+		warm.advanceTo(warmUp);
+		long start = System.nanoTime();
+		save(warm, filename);
+		long saved = System.nanoTime();
+		Simulator resumed = load(filename);
+		long loaded = System.nanoTime();
+		resumed.setVerbose(false);
+		resumed.advanceTo(Simulator.SIMULATION_DURATION);
+		resumed.finish();
+
+		boolean same = whole.getLot().toString().equals(resumed.getLot().toString())
+				&& whole.getEnteredCount() == resumed.getEnteredCount()
+				&& whole.getExitedCount() == resumed.getExitedCount()
+				&& whole.getIncomingQueueLength() == resumed.getIncomingQueueLength()
+				&& whole.getMetrics().toString().equals(resumed.getMetrics().toString());
+
+		System.out.println("checkpoint at " + warmUp + "s: " + Files.size(Paths.get(filename)) + " bytes, saved in "
+				+ (saved - start) / 1000 + "us, loaded in " + (loaded - saved) / 1000 + "us");
+		System.out.println("resumed run " + (same ? "identical to" : "DIFFERENT from") + " the uninterrupted run");
+
+		byte[] checkpoint = capture(warm);
+		// what-if branches from the warmed-up state, on streams from a seed of their
+		// own, so no branch replays the stream of the warm-up run
+		RandomSource root = RandomSource.create(generator, new SplitMix64(seed).nextLong());
+		System.out.println();
+		System.out.println(String.format("%6s %10s %10s %12s %18s %14s", "branch", "entered", "exited",
+				"final queue", "mean wait time (s)", "restore (us)"));
+		for (int b = 0; b < branches; b++) {
+			long begin = System.nanoTime();
+			Simulator branch = restore(checkpoint, OccupancyStore.Kind.OBJECT);
+			long restored = System.nanoTime();
+			branch.setVerbose(false);
+			branch.setRandom(root.split());
+			branch.advanceTo(Simulator.SIMULATION_DURATION);
+			branch.finish();
+			System.out.println(String.format("%6d %10d %10d %12d %18.1f %14d", b, branch.getEnteredCount(),
+					branch.getExitedCount(), branch.getIncomingQueueLength(), branch.getMetrics().getWaitTime().getMean(),
+					(restored - begin) / 1000));
+		}
+	}
+}
@@ -0,0 +1,31 @@
+/**
+ * Receives the events of a simulation. Events are passed as plain arguments
+ * rather than event objects, so publishing does not have to allocate.
+ * 
+ * A sink is used by one simulation thread at a time.
+ */
+public interface SimulationEventSink {
+
+	/**
+	 * Publishes one event
+	 * 
+	 * @param kind      is the kind of event
+	 * @param car       is the car concerned (its type is car.getType())
+	 * @param clock     is the simulation time of the event
+	 * @param occupancy is the total occupancy of the lot right after the event
+	 * @param row       is the row of the spot concerned, or -1 if the event does
+	 *                  not concern a spot (EXITED)
+	 * @param spot      is the index of the spot within row, or -1
+	 */
+	void publish(EventKind kind, Car car, int clock, int occupancy, int row, int spot);
+
+	/**
+	 * Makes sure every event published so far has been handled (e.g. written)
+	 */
+	void flush();
+
+	/**
+	 * Flushes the sink and releases its resources
+	 */
+	void close();
+}
@@ -0,0 +1,346 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Metrics collected by a Simulator during a simulation: how long cars waited in
+ * front of the lot before parking, how long they stayed parked (per car type),
+ * the time-weighted length of the incoming queue and occupancy of the lot, and
+ * the number of parking attempts that failed.
+ * 
+ * All values are recorded into histograms allocated up front, so collecting the
+ * metrics does not allocate. Levels (queue length, occupancy) are weighted by
+ * the number of seconds they were held, so they are correct in every
+ * SimulationMode, including the ones that skip idle seconds.
+ */
+public class SimulationMetrics {
+
+	/**
+	 * Time-weighted histograms have buckets of width 1 up to this level
+	 */
+	private static final int LEVEL_BUCKETS = 1024;
+
+	/**
+	 * Wait and dwell times are recorded in buckets of 2^6 = 64 seconds
+	 */
+	private static final int TIME_BUCKET_BITS = 6;
+
+	/**
+	 * Largest number of buckets of a time histogram; the buckets of long
+	 * simulations are widened to stay within it
+	 */
+	private static final int MAX_TIME_BUCKETS = 4096;
+
+	private static final CarType[] CAR_TYPES = CarType.values();
+
+	/**
+	 * Seconds between a car's arrival and its parking
+	 */
+	private Histogram waitTime;
+
+	/**
+	 * Seconds a car stayed in the lot, indexed by CarType ordinal
+	 */
+	private Histogram[] dwellTime;
+
+	/**
+	 * Time-weighted length of the incoming queue and occupancy of the lot
+	 */
+	private Histogram queueLength;
+	private Histogram occupancy;
+
+	/**
+	 * Number of cars that arrived, cars that could not park when they reached the
+	 * front of the queue, and later attempts of such cars to park
+	 */
+	private long arrivals;
+	private long rejections;
+	private long retries;
+
+	/**
+	 * Current levels and the times since which they are held
+	 */
+	private int currentQueueLength;
+	private long queueLengthSince;
+	private int currentOccupancy;
+	private long occupancySince;
+
+	/**
+	 * @param capacity     is the number of parkable spots of the lot
+	 * @param maxWaitTime  is the largest wait time recorded in its own bucket (of
+	 *                     64 seconds, or wider if that takes more than 4096
+	 *                     buckets); longer waits fall in the overflow bucket
+	 * @param maxDwellTime is the largest dwell time recorded in its own bucket
+	 */
+	public SimulationMetrics(int capacity, int maxWaitTime, int maxDwellTime) {
+		waitTime = timeHistogram(maxWaitTime);
+		dwellTime = new Histogram[CAR_TYPES.length];
+		for (int t = 0; t < dwellTime.length; t++) {
+			dwellTime[t] = timeHistogram(maxDwellTime);
+		}
+		queueLength = new Histogram(0, LEVEL_BUCKETS);
+		occupancy = Histogram.forRange(capacity, LEVEL_BUCKETS);
+	}
+
+	private SimulationMetrics() {
+	}
+
+	/**
+	 * @return a histogram of times up to maxTime, with buckets of 64 seconds or
+	 *         wider
+	 */
+	private static Histogram timeHistogram(int maxTime) {
+		int bits = TIME_BUCKET_BITS;
+		while ((maxTime >>> bits) >= MAX_TIME_BUCKETS) {
+			bits++;
+		}
+		return new Histogram(bits, (maxTime >>> bits) + 1);
+	}
+
+	/**
+	 * Clears the metrics and starts a simulation at the given time
+	 * 
+	 * @param clock       is the simulation clock
+	 * @param queueLength is the initial length of the incoming queue
+	 * @param occupancy   is the initial occupancy of the lot
+	 */
+	public void reset(long clock, int queueLength, int occupancy) {
+		waitTime.reset();
+		for (Histogram h : dwellTime) {
+			h.reset();
+		}
+		this.queueLength.reset();
+		this.occupancy.reset();
+		arrivals = 0;
+		rejections = 0;
+		retries = 0;
+		currentQueueLength = queueLength;
+		queueLengthSince = clock;
+		currentOccupancy = occupancy;
+		occupancySince = clock;
+	}
+
+	/**
+	 * Records that the length of the incoming queue changed; the previous length
+	 * is weighted by the time it was held. Several changes within the same second
+	 * only weigh the last one.
+	 * 
+	 * @param clock       is the simulation clock
+	 * @param queueLength is the new length of the incoming queue
+	 */
+	public void queueLengthChanged(long clock, int queueLength) {
+		if (clock > queueLengthSince) {
+			this.queueLength.record(currentQueueLength, clock - queueLengthSince);
+			queueLengthSince = clock;
+		}
+		currentQueueLength = queueLength;
+	}
+
+	/**
+	 * Records that the occupancy of the lot changed; the previous occupancy is
+	 * weighted by the time it was held
+	 * 
+	 * @param clock     is the simulation clock
+	 * @param occupancy is the new occupancy of the lot
+	 */
+	public void occupancyChanged(long clock, int occupancy) {
+		if (clock > occupancySince) {
+			this.occupancy.record(currentOccupancy, clock - occupancySince);
+			occupancySince = clock;
+		}
+		currentOccupancy = occupancy;
+	}
+
+	/**
+	 * Weighs the current levels up to the end of the simulation
+	 * 
+	 * @param clock is the time at which the simulation ended
+	 */
+	public void finish(long clock) {
+		queueLengthChanged(clock, currentQueueLength);
+		occupancyChanged(clock, currentOccupancy);
+	}
+
+	/**
+	 * Records the arrival of a car in front of the lot
+	 */
+	public void recordArrival() {
+		arrivals++;
+	}
+
+	/**
+	 * Records that a car parked
+	 * 
+	 * @param waited is the number of seconds the car waited since its arrival
+	 */
+	public void recordParked(long waited) {
+		waitTime.record(waited);
+	}
+
+	/**
+	 * Records a car retrying to park after a failed attempt, whatever the outcome
+	 */
+	public void recordRetry() {
+		retries++;
+	}
+
+	/**
+	 * Records a car failing to park when it reached the front of the queue
+	 */
+	public void recordRejection() {
+		rejections++;
+	}
+
+	/**
+	 * Records that a car left its spot
+	 * 
+	 * @param type  is the type of the car
+	 * @param dwell is the number of seconds the car was parked, as measured by the
+	 *              lot from the car's timestamp
+	 */
+	public void recordDeparture(CarType type, long dwell) {
+		dwellTime[type.ordinal()].record(dwell);
+	}
+
+	/**
+	 * @return the seconds between the arrival and the parking of the cars
+	 */
+	public Histogram getWaitTime() {
+		return waitTime;
+	}
+
+	/**
+	 * @param type is the type of car
+	 * @return the seconds the cars of the given type stayed in the lot
+	 */
+	public Histogram getDwellTime(CarType type) {
+		return dwellTime[type.ordinal()];
+	}
+
+	/**
+	 * @return the length of the incoming queue (including a car at the front that
+	 *         could not park yet), weighted by time
+	 */
+	public Histogram getQueueLength() {
+		return queueLength;
+	}
+
+	/**
+	 * @return the number of occupied spots, weighted by time
+	 */
+	public Histogram getOccupancy() {
+		return occupancy;
+	}
+
+	/**
+	 * @return the number of cars that arrived in front of the lot
+	 */
+	public long getArrivals() {
+		return arrivals;
+	}
+
+	/**
+	 * @return the number of cars that could not park when they reached the front
+	 *         of the queue
+	 */
+	public long getRejections() {
+		return rejections;
+	}
+
+	/**
+	 * @return the number of times a car that could not park tried again
+	 */
+	public long getRetries() {
+		return retries;
+	}
+
+	/**
+	 * @return an independent copy of these metrics
+	 */
+	public SimulationMetrics snapshot() {
+		SimulationMetrics copy = new SimulationMetrics();
+		copy.waitTime = waitTime.copy();
+		copy.dwellTime = new Histogram[dwellTime.length];
+		for (int t = 0; t < dwellTime.length; t++) {
+			copy.dwellTime[t] = dwellTime[t].copy();
+		}
+		copy.queueLength = queueLength.copy();
+		copy.occupancy = occupancy.copy();
+		copy.arrivals = arrivals;
+		copy.rejections = rejections;
+		copy.retries = retries;
+		copy.currentQueueLength = currentQueueLength;
+		copy.queueLengthSince = queueLengthSince;
+		copy.currentOccupancy = currentOccupancy;
+		copy.occupancySince = occupancySince;
+		return copy;
+	}
+
+	/**
+	 * Writes the metrics, including the levels being weighed
+	 * 
+	 * @param out is the stream written to
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void write(DataOutputStream out) throws IOException {
+		waitTime.write(out);
+		for (Histogram h : dwellTime) {
+			h.write(out);
+		}
+		queueLength.write(out);
+		occupancy.write(out);
+		out.writeLong(arrivals);
+		out.writeLong(rejections);
+		out.writeLong(retries);
+		out.writeInt(currentQueueLength);
+		out.writeLong(queueLengthSince);
+		out.writeInt(currentOccupancy);
+		out.writeLong(occupancySince);
+	}
+
+	/**
+	 * Reads metrics written by write
+	 * 
+	 * @param in is the stream read from
+	 * @return the metrics
+	 * @throws IOException if the stream cannot be read
+	 */
+	public static SimulationMetrics read(DataInputStream in) throws IOException {
+		SimulationMetrics metrics = new SimulationMetrics();
+		metrics.waitTime = Histogram.read(in);
+		metrics.dwellTime = new Histogram[CAR_TYPES.length];
+		for (int t = 0; t < metrics.dwellTime.length; t++) {
+			metrics.dwellTime[t] = Histogram.read(in);
+		}
+		metrics.queueLength = Histogram.read(in);
+		metrics.occupancy = Histogram.read(in);
+		metrics.arrivals = in.readLong();
+		metrics.rejections = in.readLong();
+		metrics.retries = in.readLong();
+		metrics.currentQueueLength = in.readInt();
+		metrics.queueLengthSince = in.readLong();
+		metrics.currentOccupancy = in.readInt();
+		metrics.occupancySince = in.readLong();
+		return metrics;
+	}
+
+	/**
+	 * Returns a multi-line report of the metrics
+	 */
+	public String toString() {
+		StringBuffer buffer = new StringBuffer();
+		buffer.append("==== Simulation Metrics ====").append(System.lineSeparator());
+		buffer.append("Arrivals: ").append(arrivals).append(", rejections: ").append(rejections)
+				.append(", retries: ").append(retries).append(System.lineSeparator());
+		buffer.append("Wait time (s): ").append(waitTime).append(System.lineSeparator());
+		for (CarType type : CAR_TYPES) {
+			if (type != CarType.NA) {
+				buffer.append("Dwell time (s), ").append(type).append(": ").append(dwellTime[type.ordinal()])
+						.append(System.lineSeparator());
+			}
+		}
+		buffer.append("Queue length (time-weighted): ").append(queueLength).append(System.lineSeparator());
+		buffer.append("Occupancy (time-weighted): ").append(occupancy).append(System.lineSeparator());
+		return buffer.toString();
+	}
+}
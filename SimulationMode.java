@@ -0,0 +1,22 @@
+/**
+ * The ways in which Simulator can advance a simulation.
+ */
+public enum SimulationMode {
+
+	/**
+	 * Every simulated second, every parked car is checked for departure
+	 */
+	TIME_STEPPED,
+
+	/**
+	 * Departure times are sampled once, when cars park, and kept in a priority
+	 * queue; every simulated second only the departures that are due are handled
+	 */
+	EVENT_DRIVEN,
+
+	/**
+	 * Like EVENT_DRIVEN, but the gaps between arrivals are sampled as well and
+	 * the clock jumps straight to the next second in which something can happen
+	 */
+	NEXT_EVENT;
+}
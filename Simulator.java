@@ -1,3 +1,7 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 /**
  * @author Mehrdad Sabetzadeh, University of Ottawa
  *
@@ -21,6 +25,18 @@ public class Simulator {
 	public static final TriangularDistribution departurePDF = new TriangularDistribution(0, MAX_PARKING_DURATION / 2,
 			MAX_PARKING_DURATION);
 
+	/**
+	 * Samples, at parking time, when a car leaves; the resulting departure times
+	 * follow the same distribution as the per-second checks against departurePDF
+	 */
+	private static final DepartureSampler departureSampler = new DepartureSampler(departurePDF,
+			MAX_PARKING_DURATION);
+
+	/**
+	 * The car types, indexed by ordinal
+	 */
+	private static final CarType[] CAR_TYPES = CarType.values();
+
 	/**
 	 * The probability that a car would arrive at any given (simulated) second
 	 * This probability is calculated in the constructor based on the perHourArrivalRate
@@ -28,6 +44,14 @@ public class Simulator {
 	 */
 	private Rational probabilityOfArrivalPerSec;
 
+	/**
+	 * The time-varying arrival rate, used instead of probabilityOfArrivalPerSec
+	 * when it is not null, and the expected number of arrivals from time 0 to the
+	 * next arrival (NEXT_EVENT mode only)
+	 */
+	private ArrivalProfile profile;
+	private double arrivalMass;
+
 	/**
 	 * The simulation clock. Initially the clock should be set to zero; the clock
 	 * should then be incremented by one unit after each (simulated) second.
@@ -57,15 +81,142 @@ public class Simulator {
 	 */
 	private Queue<Spot> outgoingQueue;
 
+	/**
+	 * How the simulation is advanced
+	 */
+	private SimulationMode mode;
+
+	/**
+	 * How the cars waiting in front of the lot are let in
+	 */
+	private AdmissionPolicy policy = AdmissionPolicy.FIFO;
+
+	/**
+	 * Unless the policy is FIFO, the waiting lines per car type (indexed by
+	 * CarType ordinal) used instead of the incomingQueue, the number of cars in
+	 * them, the line whose turn is next (ROUND_ROBIN), and the car at the front of
+	 * each line that was last counted as rejected
+	 */
+	private Queue<Spot>[] waitingLines;
+	private int waiting;
+	private int nextLine;
+	private Spot[] rejected;
+
+	/**
+	 * Departures scheduled for the cars in the lot (EVENT_DRIVEN mode only)
+	 */
+	private DepartureQueue departures;
+
+	/**
+	 * The car dequeued from the incomingQueue that is trying to enter the lot,
+	 * and whether it has been parked
+	 */
+	private Spot in;
+	private boolean check;
+
+	/**
+	 * The source of all the random quantities of this simulation
+	 */
+	private java.util.random.RandomGenerator random;
+
+	/**
+	 * Where the ENTERED and EXITED events of the simulation are published
+	 */
+	private SimulationEventSink sink;
+
+	/**
+	 * Number of cars that entered and exited the lot during the simulation
+	 */
+	private int entered, exited;
+
+	/**
+	 * The second of the next arrival, and the next second in which something can
+	 * happen (NEXT_EVENT mode only)
+	 */
+	private long nextArrival;
+	private long nextVisit;
+
+	/**
+	 * Cars routed here from other lots, in order of arrival time; they join the
+	 * waiting cars when the clock reaches their timestamp
+	 */
+	private Queue<Spot> scheduledArrivals = new ArrayQueue<Spot>();
+	private int lastScheduledArrival;
+
+	/**
+	 * Cars that have waited maxWait seconds or more without parking are routed
+	 * to another lot, which they reach travelDelay seconds later; maxWait is
+	 * negative when cars are never routed
+	 */
+	private int maxWait = -1;
+	private int travelDelay;
+
+	/**
+	 * Cars routed away from this lot, until they are drained, and their number
+	 * during the simulation
+	 */
+	private Queue<Spot> overflowQueue = new ArrayQueue<Spot>();
+	private int routed;
+
+	/**
+	 * Wait times, dwell times, queue length and occupancy of the simulation, or
+	 * null when they are not collected
+	 */
+	private SimulationMetrics metrics;
+
 	/**
 	 * @param lot                 is the parking lot to be simulated
 	 * @param perHourArrivalRate  is the HOURLY rate at which cars show up in front of the lot
 	 * @param steps               is the total number of steps for simulation
 	 */
 	public Simulator(ParkingLot lot, int perHourArrivalRate, int steps) {
+		this(lot, perHourArrivalRate, steps, SimulationMode.TIME_STEPPED);
+	}
+
+	/**
+	 * @param lot                 is the parking lot to be simulated
+	 * @param perHourArrivalRate  is the HOURLY rate at which cars show up in front of the lot
+	 * @param steps               is the total number of steps for simulation
+	 * @param mode                is how the simulation is advanced
+	 */
+	public Simulator(ParkingLot lot, int perHourArrivalRate, int steps, SimulationMode mode) {
+		this(lot, perHourArrivalRate, steps, mode, new SplitMix64());
+	}
+
+	/**
+	 * @param lot     is the parking lot to be simulated
+	 * @param profile is the time-varying rate at which cars show up in front of
+	 *                the lot
+	 * @param steps   is the total number of steps for simulation
+	 * @param mode    is how the simulation is advanced
+	 * @param random  is the source of randomness, used by this simulator only
+	 */
+	public Simulator(ParkingLot lot, ArrivalProfile profile, int steps, SimulationMode mode,
+			java.util.random.RandomGenerator random) {
+		this(lot, 0, steps, mode, random);
+		this.profile = profile;
+	}
+
+	/**
+	 * @param lot                 is the parking lot to be simulated
+	 * @param perHourArrivalRate  is the HOURLY rate at which cars show up in front of the lot
+	 * @param steps               is the total number of steps for simulation
+	 * @param mode                is how the simulation is advanced
+	 * @param random              is the source of randomness, used by this simulator only;
+	 *                            the simulation can only be checkpointed if it is a
+	 *                            RandomSource
+	 */
+	public Simulator(ParkingLot lot, int perHourArrivalRate, int steps, SimulationMode mode,
+			java.util.random.RandomGenerator random) {
 
 		this.lot = lot;
 
+		this.random = random;
+
+		this.sink = new ConsoleEventSink();
+
+		this.mode = mode;
+
 		this.steps = steps;
 
 		this.clock = 0;
@@ -82,8 +233,10 @@ public class Simulator {
 		
 		// Finally, you need to initialize the incoming and outgoing queues
 
-		incomingQueue = new LinkedQueue <Spot>();
-		outgoingQueue = new LinkedQueue <Spot>();
+		incomingQueue = new ArrayQueue <Spot>();
+		outgoingQueue = new ArrayQueue <Spot>();
+
+		metrics = new SimulationMetrics(lot.getTotalCapacity(), steps, MAX_PARKING_DURATION);
 
 	}
 
@@ -93,43 +246,79 @@ public class Simulator {
 	 * In this method, you will implement the algorithm shown in Figure 3 of the A2 description.
 	 */
 	public void simulate() {
-	
-		// Local variables can be defined here.
+		start();
+		advanceTo(steps);
+		finish();
+	}
+
+	/**
+	 * Starts a simulation at clock 0 without running it; the simulation is then
+	 * run with advanceTo and ended with finish. simulate() does all three.
+	 */
+	public void start() {
 
 		this.clock = 0;
 		// Note that for the specific purposes of A2, clock could have been 
 		// defined as a local variable too.
 		
-                boolean check = true;    // determine whether the car dequeued from the incomingQueue has been parked.
-		Spot in = null;      
-		// these local variables used from line 141 to 153
+		check = true;    // determine whether the car dequeued from the incomingQueue has been parked.
+		in = null;
+		entered = 0;
+		exited = 0;
+		routed = 0;
+
+		if (metrics != null) {
+			metrics.reset(clock, getIncomingQueueLength(), lot.getTotalOccupancy());
+		}
+
+		if (mode == SimulationMode.EVENT_DRIVEN || mode == SimulationMode.NEXT_EVENT) {
+			departures = new DepartureQueue();
+
+			// cars already in the lot when the simulation starts
+			for (int i = 0; i < lot.getNumRows(); i++)
+				for (int j = 0; j < lot.getNumSpotsPerRow(); j++)
+					if (lot.isOccupied(i, j))
+						scheduleDeparture(i * lot.getNumSpotsPerRow() + j);
+
+			nextArrival = -1L;
+			arrivalMass = (profile != null) ? profile.arrivalsUntil(clock) : 0;
+			sampleNextArrival();
+			nextVisit = 0;
+		}
+	}
+
+	/**
+	 * Runs a started simulation up to (but excluding) a given second, or to the
+	 * end of the simulation if that comes first. Running a simulation in several
+	 * calls gives the same results as running it in one.
+	 * 
+	 * @param time is the second at which to stop
+	 */
+	public void advanceTo(int time) {
+		int until = Math.min(time, steps);
+		if (mode == SimulationMode.EVENT_DRIVEN || mode == SimulationMode.NEXT_EVENT) {
+			simulateEventDriven(until, mode == SimulationMode.NEXT_EVENT);
+			return;
+		}
 		
-		while (clock < steps) {
+		while (clock < until) {
 	
-			// WRITE YOUR CODE HERE!
-			boolean carArrives = RandomGenerator.eventOccurred(probabilityOfArrivalPerSec); 
-			if (carArrives){
-				Car car = RandomGenerator.generateRandomCar();
-				Spot s = new Spot(car, clock);
-				incomingQueue.enqueue(s);	
-			}
-			
+			arrive();
+			deliverScheduledArrivals();
 			
 			for (int i = 0; i < lot.getNumRows(); i++){
 				for (int j = 0; j < lot.getNumSpotsPerRow(); j++){
-					if (lot.getSpotAt(i,j) != null){
-						int parkDuration = clock - lot.getSpotAt(i,j).getTimestamp();   // calculate the duration that c has been parked
+					if (lot.isOccupied(i,j)){
+						int parkDuration = clock - lot.getTimestampAt(i,j);   // calculate the duration that c has been parked
 					
-					    if (parkDuration == MAX_PARKING_DURATION){
-							Spot s = lot.remove(i,j);    // remove the car from the lot
-							outgoingQueue.enqueue(s);    // place it in the outgoing queue  
+					    if (parkDuration >= MAX_PARKING_DURATION){
+							vacate(i,j);    // remove the car from the lot and place it in the outgoing queue
 						    
 						    
 					    }else{
-						    boolean carDeparts = RandomGenerator.eventOccurred(departurePDF.pdf(parkDuration));
+						    boolean carDeparts = RandomGenerator.eventOccurred(departurePDF.density(parkDuration), random);
 						    if(carDeparts){
-								Spot s = lot.remove(i,j);
-							    outgoingQueue.enqueue(s);
+								vacate(i,j);
 							    
 						    }
 					    }
@@ -137,28 +326,736 @@ public class Simulator {
 				}
 			}
 			
-			
-			if (!incomingQueue.isEmpty() && check){    
-			    in = incomingQueue.dequeue();
-				check = lot.attemptParking(in.getCar(), in.getTimestamp());  // attempt to park the car dequeued
-				if (check){
-					System.out.println(in.getCar() + " ENTERED at timestep " + clock + "; occupancy is a " + lot.getTotalOccupancy());
-				}
-			}else if (!check){
-				check = lot.attemptParking(in.getCar(), in.getTimestamp());  // checks whether an appropriate spot has been freed since the last iteration
-				if (check){
-					System.out.println(in.getCar() + " ENTERED at timestep " + clock + "; occupancy is a " + lot.getTotalOccupancy());
+			admit();
+			exit();
+			overflow();
+
+			clock++;
+		}
+	}
+
+	/**
+	 * Ends a simulation: weighs the final levels and flushes the event sink
+	 */
+	public void finish() {
+		if (metrics != null) {
+			metrics.finish(clock);
+		}
+		sink.flush();
+	}
+
+	/**
+	 * Same loop as advanceTo() in TIME_STEPPED mode, except that a car's departure
+	 * time is sampled once when it parks, so each second only the departures that
+	 * are due are handled instead of every spot of the lot.
+	 * 
+	 * When skipIdle is true, arrival times are sampled ahead as well, and the clock
+	 * advances directly to the next second with an arrival, a departure, a car
+	 * waiting to exit, a car that can try to enter, or a car that has waited too
+	 * long. A car that could not park only retries once a departure or the end
+	 * of a reservation has freed a spot.
+	 * 
+	 * @param until    is the second at which to stop
+	 * @param skipIdle is true to skip the seconds in which nothing can happen
+	 */
+	private void simulateEventDriven(int until, boolean skipIdle) {
+
+		while (clock < until) {
+
+			if (skipIdle && clock < nextVisit) {
+				// a previous call stopped before the next second in which something happens
+				clock = (int) Math.min(nextVisit, until);
+				continue;
+			}
+
+			if (!skipIdle) {
+				arrive();
+			} else {
+				// several arrivals may fall in the same second when the rate varies
+				while (clock == nextArrival) {
+					enqueueArrival();
+					sampleNextArrival();
 				}
-				
+			}
+			deliverScheduledArrivals();
+
+			while (!departures.isEmpty() && departures.peekTime() <= clock) {
+				int position = departures.poll();
+				vacate(position / lot.getNumSpotsPerRow(), position % lot.getNumSpotsPerRow());
+			}
+
+			int position = admit();
+			if (position >= 0) {
+				scheduleDeparture(position);
+			}
+
+			exit();
+			overflow();
+
+			if (!skipIdle) {
+				clock++;
+				continue;
+			}
+
+			long next = nextArrival;
+			if (!departures.isEmpty()) {
+				next = Math.min(next, departures.peekTime());
+			}
+			if (!scheduledArrivals.isEmpty()) {
+				next = Math.min(next, scheduledArrivals.peek().getTimestamp());
+			}
+			if (getIncomingQueueLength() > 0) {
+				// a reservation ending frees a spot as a departure does
+				next = Math.min(next, lot.nextReservationRelease());
+			}
+			if (maxWait >= 0 && getIncomingQueueLength() > 0) {
+				next = Math.min(next, (long) oldestWaitingTimestamp() + maxWait);
+			}
+			if (!outgoingQueue.isEmpty() || canAdmit()) {
+				next = clock + 1;
+			}
+			nextVisit = Math.max(next, clock + 1L);
+			clock = (int) Math.min(nextVisit, until);
+		}
+	}
+
+	/**
+	 * Samples when the car parked at a given position leaves and schedules it
+	 * 
+	 * @param position is the position i * numSpotsPerRow + j of the car's spot
+	 */
+	private void scheduleDeparture(int position) {
+		int timestamp = lot.getTimestampAt(position / lot.getNumSpotsPerRow(), position % lot.getNumSpotsPerRow());
+		int duration = departureSampler.sample(clock - timestamp, random);
+		departures.add(timestamp + duration, position);
+	}
+
+	/**
+	 * Samples the second of the arrival that follows the next one (NEXT_EVENT mode
+	 * only); its cost does not depend on the number of seconds in between
+	 */
+	private void sampleNextArrival() {
+		if (profile == null) {
+			nextArrival += RandomGenerator.trialsUntilEvent(probabilityOfArrivalPerSec, random);
+		} else {
+			arrivalMass = profile.nextArrivalMass(arrivalMass, random);
+			nextArrival = (long) Math.floor(profile.timeOfArrivals(arrivalMass));
+		}
+	}
+
+	/**
+	 * A car may arrive in front of the lot; if so, it joins the incomingQueue
+	 */
+	private void arrive() {
+		boolean carArrives = (profile != null) ? RandomGenerator.eventOccurred(profile.probabilityAt(clock), random)
+				: RandomGenerator.eventOccurred(probabilityOfArrivalPerSec, random);
+		if (carArrives){
+			enqueueArrival();
+		}
+	}
+
+	/**
+	 * A random car arrives now and joins the incomingQueue
+	 */
+	private void enqueueArrival() {
+		Car car = RandomGenerator.generateRandomCar(random);
+		enqueueWaiting(new Spot(car, clock));
+	}
+
+	/**
+	 * Lets the cars routed here that arrive now join the waiting cars
+	 */
+	private void deliverScheduledArrivals() {
+		while (!scheduledArrivals.isEmpty() && scheduledArrivals.peek().getTimestamp() <= clock) {
+			enqueueWaiting(scheduledArrivals.dequeue());
+		}
+	}
+
+	/**
+	 * A car joins the incomingQueue, or its waiting line
+	 * 
+	 * @param s is the car, with its arrival time
+	 */
+	private void enqueueWaiting(Spot s) {
+		if (waitingLines == null) {
+			incomingQueue.enqueue(s);
+		} else {
+			waitingLines[s.getCar().getType().ordinal()].enqueue(s);
+			waiting++;
+		}
+		if (metrics != null) {
+			metrics.recordArrival();
+			metrics.queueLengthChanged(clock, getIncomingQueueLength());
+		}
+	}
+
+	/**
+	 * Tries to park the car at the front of the incomingQueue. A car that cannot
+	 * park keeps the front until a suitable spot is freed.
+	 * 
+	 * @return the position where a car was parked, or -1 if no car was parked
+	 */
+	private int admit() {
+		lot.advanceReservationsTo(clock); // cars park with their arrival time
+		if (waitingLines != null) {
+			return admitFromLines();
+		}
+		int position = -1;
+		if (!incomingQueue.isEmpty() && check){    
+		    in = incomingQueue.dequeue();
+			position = lot.attemptParkingAt(in.getCar(), in.getTimestamp());  // attempt to park the car dequeued
+			check = position >= 0;
+			if (check){
+				parked(position);
+			}else if (metrics != null){
+				metrics.recordRejection();
+			}
+		}else if (!check){
+			position = lot.attemptParkingAt(in.getCar(), in.getTimestamp());  // checks whether an appropriate spot has been freed since the last iteration
+			check = position >= 0;
+			if (metrics != null){
+				metrics.recordRetry();
+			}
+			if (check){
+				parked(position);
 			}
 			
-			if(!outgoingQueue.isEmpty()){
-				Spot out = outgoingQueue.dequeue();
-				System.out.println(out.getCar() + " EXITED at timestep " + clock + "; occupancy is a " + lot.getTotalOccupancy());
+		}
+		return position;
+	}
+
+	/**
+	 * Parks the car chosen by the policy among the cars at the front of the
+	 * waiting lines whose type can park, if any
+	 * 
+	 * @return the position where a car was parked, or -1 if no car was parked
+	 */
+	private int admitFromLines() {
+		int line = -1;
+		for (int k = 0; k < waitingLines.length; k++) {
+			int t = (policy == AdmissionPolicy.ROUND_ROBIN) ? (nextLine + k) % waitingLines.length : k;
+			if (waitingLines[t].isEmpty()) {
+				continue;
+			}
+			Spot head = waitingLines[t].peek();
+			if (!lot.hasSpotFor(CAR_TYPES[t])) {
+				rejected(t, head);
+			} else if (line < 0 || (policy == AdmissionPolicy.OLDEST_FIRST
+					&& head.getTimestamp() < waitingLines[line].peek().getTimestamp())) {
+				line = t;
 			}
+		}
+		if (line < 0) {
+			return -1;
+		}
 
-			clock++;
+		Spot head = waitingLines[line].peek();
+		int position = lot.attemptParkingAt(head.getCar(), head.getTimestamp());
+		if (position < 0) {
+			rejected(line, head); // the car keeps the front of its line
+			return -1;
 		}
+		in = waitingLines[line].dequeue();
+		waiting--;
+		nextLine = (line + 1) % waitingLines.length;
+		parked(position);
+		return position;
+	}
+
+	/**
+	 * Records that the car at the front of a waiting line could not park: a
+	 * rejection the first time, a retry afterwards
+	 * 
+	 * @param t    is the line, by CarType ordinal
+	 * @param head is the car at its front
+	 */
+	private void rejected(int t, Spot head) {
+		if (metrics != null) {
+			if (rejected[t] != head) {
+				rejected[t] = head;
+				metrics.recordRejection();
+			} else {
+				metrics.recordRetry();
+			}
+		}
+	}
+
+	/**
+	 * Routes the cars that have waited maxWait seconds or more to another lot,
+	 * the longest waiting first
+	 */
+	private void overflow() {
+		if (maxWait < 0 || getIncomingQueueLength() == 0) {
+			return;
+		}
+		int deadline = clock - maxWait;
+		if (waitingLines == null) {
+			if (!check && in.getTimestamp() <= deadline) {
+				route(in);
+				in = null;
+				check = true;
+			}
+			while (!incomingQueue.isEmpty() && incomingQueue.peek().getTimestamp() <= deadline) {
+				route(incomingQueue.dequeue());
+			}
+		} else {
+			for (Queue<Spot> line : waitingLines) {
+				while (!line.isEmpty() && line.peek().getTimestamp() <= deadline) {
+					route(line.dequeue());
+					waiting--;
+				}
+			}
+		}
+		if (metrics != null) {
+			metrics.queueLengthChanged(clock, getIncomingQueueLength());
+		}
+	}
+
+	/**
+	 * Sends a waiting car to the overflowQueue
+	 * 
+	 * @param s is the car, with its arrival time
+	 */
+	private void route(Spot s) {
+		overflowQueue.enqueue(new RoutedSpot(s.getCar(), clock + travelDelay, s.getHops() + 1));
+		routed++;
+	}
+
+	/**
+	 * @return the arrival time of the car that has waited longest; there must be
+	 *         a waiting car
+	 */
+	private int oldestWaitingTimestamp() {
+		if (waitingLines == null) {
+			return (!check) ? in.getTimestamp() : incomingQueue.peek().getTimestamp();
+		}
+		int oldest = Integer.MAX_VALUE;
+		for (Queue<Spot> line : waitingLines) {
+			if (!line.isEmpty()) {
+				oldest = Math.min(oldest, line.peek().getTimestamp());
+			}
+		}
+		return oldest;
+	}
+
+	/**
+	 * @return true if a car waiting in front of the lot can try to park now
+	 */
+	private boolean canAdmit() {
+		lot.advanceReservationsTo(clock);
+		if (waitingLines == null) {
+			return check && !incomingQueue.isEmpty();
+		}
+		for (int t = 0; t < waitingLines.length; t++) {
+			if (!waitingLines[t].isEmpty() && lot.hasSpotFor(CAR_TYPES[t])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Counts and publishes the car that was just parked from the front of the
+	 * incomingQueue or of a waiting line
+	 * 
+	 * @param position is the position where the car was parked
+	 */
+	private void parked(int position) {
+		entered++;
+		if (metrics != null) {
+			metrics.recordParked(clock - in.getTimestamp());
+			metrics.queueLengthChanged(clock, getIncomingQueueLength());
+			metrics.occupancyChanged(clock, lot.getTotalOccupancy());
+		}
+		sink.publish(EventKind.ENTERED, in.getCar(), clock, lot.getTotalOccupancy(),
+				position / lot.getNumSpotsPerRow(), position % lot.getNumSpotsPerRow());
+	}
+
+	/**
+	 * Removes the car parked at (i, j) from the lot and places it in the
+	 * outgoingQueue
+	 * 
+	 * @param i is the parking row index
+	 * @param j is the index of the spot within row i
+	 */
+	private void vacate(int i, int j) {
+		Spot s = lot.remove(i, j);
+		if (metrics != null) {
+			metrics.recordDeparture(s.getCar().getType(), clock - s.getTimestamp());
+			metrics.occupancyChanged(clock, lot.getTotalOccupancy());
+		}
+		sink.publish(EventKind.VACATED, s.getCar(), clock, lot.getTotalOccupancy(), i, j);
+		outgoingQueue.enqueue(s);
+	}
+
+	/**
+	 * Lets the car at the front of the outgoingQueue, if any, exit
+	 */
+	private void exit() {
+		if(!outgoingQueue.isEmpty()){
+			Spot out = outgoingQueue.dequeue();
+			exited++;
+			sink.publish(EventKind.EXITED, out.getCar(), clock, lot.getTotalOccupancy(), -1, -1);
+		}
+	}
+
+	/**
+	 * @param verbose is true to print ENTERED and EXITED events to the standard
+	 *                output (the default), false to run silently
+	 */
+	public void setVerbose(boolean verbose) {
+		setEventSink(verbose ? new ConsoleEventSink() : NullEventSink.INSTANCE);
+	}
+
+	/**
+	 * @param sink is where the ENTERED and EXITED events are published; it is
+	 *             flushed at the end of every simulation, but not closed
+	 */
+	public void setEventSink(SimulationEventSink sink) {
+		this.sink = sink;
+	}
+
+	/**
+	 * Sets how the cars waiting in front of the lot are let in; the default is
+	 * FIFO
+	 * 
+	 * @param policy is the admission policy
+	 * @throws IllegalStateException if cars are waiting in front of the lot
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void setAdmissionPolicy(AdmissionPolicy policy) {
+		if (getIncomingQueueLength() > 0) {
+			throw new IllegalStateException("The admission policy cannot change while cars are waiting");
+		}
+		this.policy = policy;
+		if (policy == AdmissionPolicy.FIFO) {
+			waitingLines = null;
+			rejected = null;
+		} else if (waitingLines == null) {
+			waitingLines = new Queue[CAR_TYPES.length];
+			for (int t = 0; t < waitingLines.length; t++) {
+				waitingLines[t] = new ArrayQueue<Spot>();
+			}
+			rejected = new Spot[CAR_TYPES.length];
+		}
+	}
+
+	/**
+	 * @return how the cars waiting in front of the lot are let in
+	 */
+	public AdmissionPolicy getAdmissionPolicy() {
+		return policy;
+	}
+
+	/**
+	 * @param enabled is true to collect the metrics of the simulation (the
+	 *                default), false not to
+	 */
+	public void setMetricsEnabled(boolean enabled) {
+		if (!enabled) {
+			metrics = null;
+		} else if (metrics == null) {
+			metrics = new SimulationMetrics(lot.getTotalCapacity(), steps, MAX_PARKING_DURATION);
+		}
+	}
+
+	/**
+	 * Routes the cars that wait too long to other lots. Routed cars are collected
+	 * until drainOverflow is called.
+	 * 
+	 * @param maxWait     is the number of seconds after which a car that could not
+	 *                    park is routed (0 to route cars as soon as they cannot
+	 *                    park), or a negative number never to route cars (the
+	 *                    default)
+	 * @param travelDelay is the number of seconds a routed car takes to reach the
+	 *                    next lot (at least 1)
+	 */
+	public void setOverflow(int maxWait, int travelDelay) {
+		if (maxWait >= 0 && travelDelay < 1) {
+			throw new IllegalArgumentException("The travel delay should be at least 1 second: " + travelDelay);
+		}
+		this.maxWait = maxWait;
+		this.travelDelay = travelDelay;
+	}
+
+	/**
+	 * Moves the cars routed away from this lot since the last call to a queue, in
+	 * the order in which they were routed. Their timestamps are the seconds at
+	 * which they reach the next lot.
+	 * 
+	 * @param target is the queue receiving the cars
+	 * @return the number of cars moved
+	 */
+	public int drainOverflow(Queue<? super Spot> target) {
+		return overflowQueue.drainTo(target);
+	}
+
+	/**
+	 * Schedules the arrival of a car routed here from another lot. Arrivals must
+	 * be scheduled in order of arrival time, and not in the past.
+	 * 
+	 * @param s is the car, whose timestamp is the second at which it arrives
+	 */
+	public void scheduleArrival(Spot s) {
+		if (s.getTimestamp() < clock || (!scheduledArrivals.isEmpty() && s.getTimestamp() < lastScheduledArrival)) {
+			throw new IllegalArgumentException("Arrivals must be scheduled in order, from the current second on: " + s);
+		}
+		scheduledArrivals.enqueue(s);
+		lastScheduledArrival = s.getTimestamp();
+		nextVisit = Math.min(nextVisit, s.getTimestamp());
+	}
+
+	/**
+	 * Replaces the source of randomness, e.g. to run a restored simulation as a
+	 * different branch
+	 * 
+	 * @param random is the source of randomness, used by this simulator only
+	 */
+	public void setRandom(java.util.random.RandomGenerator random) {
+		this.random = random;
+	}
+
+	/**
+	 * Changes the hourly arrival rate; in NEXT_EVENT mode, it applies from the
+	 * arrival after the next one
+	 * 
+	 * @param perHourArrivalRate is the HOURLY rate at which cars show up in front
+	 *                           of the lot
+	 */
+	public void setArrivalRate(int perHourArrivalRate) {
+		probabilityOfArrivalPerSec = new Rational(perHourArrivalRate, 3600);
+		profile = null;
+	}
+
+	/**
+	 * Makes the arrival rate vary over time; in NEXT_EVENT mode, it applies from
+	 * the arrival after the next one
+	 * 
+	 * @param profile is the time-varying rate at which cars show up in front of
+	 *                the lot
+	 */
+	public void setArrivalProfile(ArrivalProfile profile) {
+		this.profile = profile;
+		arrivalMass = profile.arrivalsUntil(Math.max(nextArrival, clock));
+	}
+
+	/**
+	 * Writes the whole state of a started simulation: the lot and its cars, the
+	 * queues, the scheduled departures and arrivals, the clock, the counters, the
+	 * metrics and the state of the source of randomness. A simulation read back
+	 * with read continues exactly as this one would. The event sink is not
+	 * written.
+	 * 
+	 * @param out is the stream written to
+	 * @throws IOException           if the stream cannot be written
+	 * @throws IllegalStateException if the source of randomness is not a
+	 *                               RandomSource, whose state can be saved
+	 */
+	public void write(DataOutputStream out) throws IOException {
+		if (!(random instanceof RandomSource)) {
+			throw new IllegalStateException("The state of a " + random.getClass().getName() + " cannot be saved");
+		}
+		lot.write(out);
+		out.writeInt(probabilityOfArrivalPerSec.numerator());
+		out.writeInt(probabilityOfArrivalPerSec.denominator());
+		out.writeInt(steps);
+		out.writeByte(mode.ordinal());
+		out.writeByte(policy.ordinal());
+		out.writeInt(maxWait);
+		out.writeInt(travelDelay);
+
+		out.writeInt(clock);
+		out.writeBoolean(check);
+		if (!check) {
+			in.write(out);
+		}
+		writeSpots(out, incomingQueue);
+		if (waitingLines != null) {
+			out.writeInt(nextLine);
+			for (int t = 0; t < waitingLines.length; t++) {
+				writeSpots(out, waitingLines[t]);
+				out.writeBoolean(!waitingLines[t].isEmpty() && rejected[t] == waitingLines[t].peek());
+			}
+		}
+		writeSpots(out, outgoingQueue);
+		out.writeBoolean(departures != null);
+		if (departures != null) {
+			departures.write(out);
+		}
+		out.writeLong(nextArrival);
+		out.writeLong(nextVisit);
+		out.writeBoolean(profile != null);
+		if (profile != null) {
+			profile.write(out);
+			out.writeDouble(arrivalMass);
+		}
+		writeSpots(out, scheduledArrivals);
+		out.writeInt(lastScheduledArrival);
+		writeSpots(out, overflowQueue);
+		out.writeInt(entered);
+		out.writeInt(exited);
+		out.writeInt(routed);
+
+		out.writeBoolean(metrics != null);
+		if (metrics != null) {
+			metrics.write(out);
+		}
+		RandomSource source = (RandomSource) random;
+		long[] state = source.getState();
+		out.writeByte(source.getKind().ordinal());
+		out.writeByte(state.length);
+		for (long word : state) {
+			out.writeLong(word);
+		}
+	}
+
+	/**
+	 * Reads a simulation written by write; it is continued with advanceTo and
+	 * ended with finish. Its events are published to the console until another
+	 * sink is set.
+	 * 
+	 * @param in      is the stream read from
+	 * @param storage is how the occupancy of the spots of the lot is stored
+	 * @return the simulation
+	 * @throws IOException if the stream cannot be read
+	 */
+	public static Simulator read(DataInputStream in, OccupancyStore.Kind storage) throws IOException {
+		ParkingLot lot = ParkingLot.read(in, storage);
+		Rational probability = new Rational(in.readInt(), in.readInt());
+		int steps = in.readInt();
+		SimulationMode mode = SimulationMode.values()[in.readByte()];
+		Simulator sim = new Simulator(lot, 0, steps, mode, null);
+		sim.probabilityOfArrivalPerSec = probability;
+		sim.setAdmissionPolicy(AdmissionPolicy.values()[in.readByte()]);
+		sim.maxWait = in.readInt();
+		sim.travelDelay = in.readInt();
+
+		sim.clock = in.readInt();
+		sim.check = in.readBoolean();
+		if (!sim.check) {
+			sim.in = Spot.read(in);
+		}
+		readSpots(in, sim.incomingQueue);
+		if (sim.waitingLines != null) {
+			sim.nextLine = in.readInt();
+			for (int t = 0; t < sim.waitingLines.length; t++) {
+				readSpots(in, sim.waitingLines[t]);
+				sim.waiting += sim.waitingLines[t].size();
+				if (in.readBoolean()) {
+					sim.rejected[t] = sim.waitingLines[t].peek();
+				}
+			}
+		}
+		readSpots(in, sim.outgoingQueue);
+		if (in.readBoolean()) {
+			sim.departures = DepartureQueue.read(in);
+		}
+		sim.nextArrival = in.readLong();
+		sim.nextVisit = in.readLong();
+		if (in.readBoolean()) {
+			sim.profile = ArrivalProfile.read(in);
+			sim.arrivalMass = in.readDouble();
+		}
+		readSpots(in, sim.scheduledArrivals);
+		sim.lastScheduledArrival = in.readInt();
+		readSpots(in, sim.overflowQueue);
+		sim.entered = in.readInt();
+		sim.exited = in.readInt();
+		sim.routed = in.readInt();
+
+		sim.metrics = in.readBoolean() ? SimulationMetrics.read(in) : null;
+		RandomSource.Kind kind = RandomSource.Kind.values()[in.readByte()];
+		long[] state = new long[in.readByte()];
+		for (int k = 0; k < state.length; k++) {
+			state[k] = in.readLong();
+		}
+		sim.random = RandomSource.restore(kind, state);
+		return sim;
+	}
+
+	/**
+	 * Writes the cars of a queue, leaving the queue as it was
+	 * 
+	 * @param out   is the stream written to
+	 * @param queue is the queue
+	 * @throws IOException if the stream cannot be written
+	 */
+	private static void writeSpots(DataOutputStream out, Queue<Spot> queue) throws IOException {
+		int size = queue.size();
+		out.writeInt(size);
+		for (int k = 0; k < size; k++) {
+			Spot s = queue.dequeue();
+			s.write(out);
+			queue.enqueue(s);
+		}
+	}
+
+	/**
+	 * Reads cars written by writeSpots
+	 * 
+	 * @param in     is the stream read from
+	 * @param target is the queue receiving the cars, in the order written
+	 * @throws IOException if the stream cannot be read
+	 */
+	private static void readSpots(DataInputStream in, Queue<Spot> target) throws IOException {
+		for (int k = in.readInt(); k > 0; k--) {
+			target.enqueue(Spot.read(in));
+		}
+	}
+
+	/**
+	 * @return the current second of the simulation
+	 */
+	public int getClock() {
+		return clock;
+	}
+
+	/**
+	 * @return the number of cars routed away from the lot during the last
+	 *         simulation
+	 */
+	public int getRoutedCount() {
+		return routed;
+	}
+
+	/**
+	 * @return a snapshot of the metrics collected so far, or null if they are not
+	 *         collected
+	 */
+	public SimulationMetrics getMetrics() {
+		return metrics == null ? null : metrics.snapshot();
+	}
+
+	/**
+	 * @return the parking lot being simulated
+	 */
+	public ParkingLot getLot() {
+		return lot;
+	}
+
+	/**
+	 * @return the number of cars waiting in front of the lot, including a car
+	 *         that is at the front but could not park yet, or in the waiting lines
+	 */
+	public int getIncomingQueueLength() {
+		if (waitingLines != null) {
+			return waiting;
+		}
+		return incomingQueue.size() + ((check || in == null) ? 0 : 1);
+	}
+
+	/**
+	 * @return the number of cars that entered the lot during the last simulation
+	 */
+	public int getEnteredCount() {
+		return entered;
+	}
+
+	/**
+	 * @return the number of cars that exited the lot during the last simulation
+	 */
+	public int getExitedCount() {
+		return exited;
 	}
 
 	/**
@@ -177,21 +1074,56 @@ public class Simulator {
 		StudentInfo.display();
 		
 		if (args.length < 2) {
-			System.out.println("Usage: java Simulator <lot-design filename> <hourly rate of arrival>");
+			System.out.println("Usage: java Simulator <lot-design filename> <hourly rate of arrival or arrival-profile filename> [mode] [trace filename] [days]");
 			System.out.println("Example: java Simulator parking.inf 11");
+			System.out.println("Example: java Simulator parking.inf weekday.profile NEXT_EVENT - 365");
+			System.out.println("Modes: TIME_STEPPED (default), EVENT_DRIVEN, NEXT_EVENT");
+			System.out.println("With a trace filename, events are written to a binary trace instead of the console (- for none)");
+			System.out.println("The simulation lasts one day unless a number of days is given");
 			return;
 		}
 
+		ArrivalProfile profile = null;
 		if (!args[1].matches("\\d+")) {
-			System.out.println("The hourly rate of arrival should be a positive integer!");
-			return;
+			if (!new java.io.File(args[1]).isFile()) {
+				System.out.println("The hourly rate of arrival should be a positive integer or an arrival-profile file!");
+				return;
+			}
+			profile = ArrivalProfile.load(args[1]);
+		}
+
+		int steps = SIMULATION_DURATION;
+		if (args.length > 4) {
+			long days = Long.parseLong(args[4]);
+			if (days < 1 || days * SIMULATION_DURATION > Integer.MAX_VALUE) {
+				System.out.println("The number of days should be between 1 and " + Integer.MAX_VALUE / SIMULATION_DURATION);
+				return;
+			}
+			steps = (int) days * SIMULATION_DURATION;
+		}
+
+		SimulationMode mode = SimulationMode.TIME_STEPPED;
+		if (args.length > 2) {
+			try {
+				mode = SimulationMode.valueOf(args[2].toUpperCase());
+			} catch (IllegalArgumentException e) {
+				System.out.println("Unknown simulation mode: " + args[2]);
+				return;
+			}
 		}
 
 		ParkingLot lot = new ParkingLot(args[0]);
 
 		System.out.println("Total number of parkable spots (capacity): " + lot.getTotalCapacity());
 
-		Simulator sim = new Simulator(lot, Integer.parseInt(args[1]), SIMULATION_DURATION);
+		Simulator sim = (profile != null) ? new Simulator(lot, profile, steps, mode, new SplitMix64())
+				: new Simulator(lot, Integer.parseInt(args[1]), steps, mode);
+
+		SimulationEventSink trace = null;
+		if (args.length > 3 && !args[3].equals("-")) {
+			trace = new BinaryTraceSink(args[3], lot);
+			sim.setEventSink(trace);
+		}
 
 		long start, end;
 
@@ -201,22 +1133,20 @@ public class Simulator {
 		end = System.currentTimeMillis();
 		System.out.println("=== SIMULATION END ===");
 
+		if (trace != null) {
+			trace.close();
+		}
+
 		System.out.println();
 
 		System.out.println("Simulation took " + (end - start) + "ms.");
 
 		System.out.println();
 
-		int count = 0;
+		System.out.println("Length of car queue at the front at the end of simulation: " + sim.incomingQueue.size());
 
-		// The Queue interface does not provide a method to get the size of the queue.
-		// We thus have to dequeue all the elements to count how many elements the queue has!
-		
-		while (!sim.incomingQueue.isEmpty()) {
-			sim.incomingQueue.dequeue();
-			count++;
-		}
+		System.out.println();
 
-		System.out.println("Length of car queue at the front at the end of simulation: " + count);
+		System.out.print(sim.getMetrics());
 	}
 }
@@ -0,0 +1,127 @@
+/**
+ * The SplitMix64 generator of java.util.SplittableRandom, with the same seeds,
+ * outputs and splits, but whose state (a seed and a gamma) can be read and
+ * restored. A simulation drawing from a SplitMix64 can therefore be saved and
+ * resumed with the random numbers it would have drawn otherwise.
+ *
+ * Like SplittableRandom, an instance is not thread-safe; split it to give each
+ * thread its own stream.
+ */
+public class SplitMix64 implements RandomSource {
+
+	/**
+	 * The gamma of the generators constructed from a seed
+	 */
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	/**
+	 * Seeds the generators constructed without a seed
+	 */
+	private static final java.util.concurrent.atomic.AtomicLong defaultGen = new java.util.concurrent.atomic.AtomicLong(
+			mix64(System.currentTimeMillis()) ^ mix64(System.nanoTime()));
+
+	private long seed;
+
+	/**
+	 * Added to the seed at every step; always odd
+	 */
+	private long gamma;
+
+	/**
+	 * Constructs a generator producing the same values as new
+	 * SplittableRandom(seed)
+	 *
+	 * @param seed is the initial seed
+	 */
+	public SplitMix64(long seed) {
+		this(seed, GOLDEN_GAMMA);
+	}
+
+	/**
+	 * Constructs a generator whose values are likely to differ from those of
+	 * every other generator of the program
+	 */
+	public SplitMix64() {
+		long s = defaultGen.getAndAdd(2 * GOLDEN_GAMMA);
+		this.seed = mix64(s);
+		this.gamma = mixGamma(s + GOLDEN_GAMMA);
+	}
+
+	/**
+	 * Constructs a generator from a state returned by getSeed and getGamma
+	 *
+	 * @param seed  is the seed
+	 * @param gamma is the gamma; it must be odd
+	 */
+	public SplitMix64(long seed, long gamma) {
+		if ((gamma & 1L) == 0) {
+			throw new IllegalArgumentException("The gamma should be odd: " + gamma);
+		}
+		this.seed = seed;
+		this.gamma = gamma;
+	}
+
+	/**
+	 * @return a new generator whose values are independent of this one's (the
+	 *         same as SplittableRandom.split())
+	 */
+	public SplitMix64 split() {
+		return new SplitMix64(nextLong(), mixGamma(nextSeed()));
+	}
+
+	public Kind getKind() {
+		return Kind.SPLITMIX64;
+	}
+
+	/**
+	 * @return the seed and the gamma
+	 */
+	public long[] getState() {
+		return new long[] { seed, gamma };
+	}
+
+	/**
+	 * @return the current seed
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @return the gamma
+	 */
+	public long getGamma() {
+		return gamma;
+	}
+
+	public int nextInt() {
+		return mix32(nextSeed());
+	}
+
+	public long nextLong() {
+		return mix64(nextSeed());
+	}
+
+	private long nextSeed() {
+		return seed += gamma;
+	}
+
+	static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	private static int mix32(long z) {
+		z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+		return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+	}
+
+	private static long mixGamma(long z) {
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		z = (z ^ (z >>> 33)) | 1L;
+		int n = Long.bitCount(z ^ (z >>> 1));
+		return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+	}
+}
@@ -1,3 +1,7 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 /**
  * @author Mehrdad Sabetzadeh, University of Ottawa
  *
@@ -34,6 +38,40 @@ public class Spot {
 		this.timestamp=timestamp;
 	}
 
+	/**
+	 * @return the number of times the car has been routed to another lot (0 for
+	 *         a car that has not been routed)
+	 */
+	public int getHops() {
+		return 0;
+	}
+
+	/**
+	 * Writes the car, the timestamp and the number of hops of the spot
+	 * 
+	 * @param out is the stream written to
+	 * @throws IOException if the stream cannot be written
+	 */
+	public void write(DataOutputStream out) throws IOException {
+		car.write(out);
+		out.writeInt(timestamp);
+		out.writeInt(getHops());
+	}
+
+	/**
+	 * Reads a spot written by write
+	 * 
+	 * @param in is the stream read from
+	 * @return the spot, a RoutedSpot if its car was routed
+	 * @throws IOException if the stream cannot be read
+	 */
+	public static Spot read(DataInputStream in) throws IOException {
+		Car car = Car.read(in);
+		int timestamp = in.readInt();
+		int hops = in.readInt();
+		return (hops == 0) ? new Spot(car, timestamp) : new RoutedSpot(car, timestamp, hops);
+	}
+
 	/**
 	 * Returns a string representation of the spot
 	 * This method is complete; you do not need to change it.
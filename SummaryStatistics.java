@@ -0,0 +1,64 @@
+/**
+ * Mean, standard deviation and 95% confidence interval of a sample of values,
+ * e.g. one metric measured over independent simulation replications.
+ */
+public class SummaryStatistics {
+
+	/**
+	 * Two-sided 95% quantiles of Student's t distribution for 1 to 30 degrees of
+	 * freedom; the normal quantile 1.96 is used beyond that
+	 */
+	private static final double[] T_95 = { 12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+			2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086, 2.080, 2.074, 2.069, 2.064, 2.060,
+			2.056, 2.052, 2.048, 2.045, 2.042 };
+
+	private int count;
+	private double mean;
+	private double m2;
+
+	/**
+	 * Adds a value to the sample (Welford's online algorithm)
+	 * 
+	 * @param value is the value to add
+	 */
+	public void add(double value) {
+		count++;
+		double delta = value - mean;
+		mean += delta / count;
+		m2 += delta * (value - mean);
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public double getMean() {
+		return mean;
+	}
+
+	/**
+	 * @return the sample standard deviation, or 0 for fewer than two values
+	 */
+	public double getStandardDeviation() {
+		return (count < 2) ? 0.0 : Math.sqrt(m2 / (count - 1));
+	}
+
+	/**
+	 * @return the half-width of the 95% confidence interval of the mean, or 0 for
+	 *         fewer than two values
+	 */
+	public double getHalfWidth95() {
+		if (count < 2) {
+			return 0.0;
+		}
+		double t = (count - 1 <= T_95.length) ? T_95[count - 2] : 1.96;
+		return t * getStandardDeviation() / Math.sqrt(count);
+	}
+
+	/**
+	 * Returns a string representation of the mean and its confidence interval
+	 */
+	public String toString() {
+		return String.format("%.2f +/- %.2f", getMean(), getHalfWidth95());
+	}
+}
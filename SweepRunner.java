@@ -0,0 +1,172 @@
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a grid of scenarios (lot designs x hourly arrival rates, each with a
+ * number of replications) in one JVM and writes one results table.
+ * 
+ * Each design file is parsed once. All the replications of all the cells go to
+ * one thread pool, so the cores stay busy until the whole sweep is done, and JVM
+ * start-up and JIT warm-up are paid once for the sweep. Every replication has
+ * its own stream, split from the seed in cell order before anything runs, so a
+ * sweep is reproducible from its seed.
+ */
+public class SweepRunner {
+
+	/**
+	 * Header of the results table
+	 */
+	private static final String HEADER = "design,rate,capacity,replications,queue_mean,queue_ci95,occupancy_mean,occupancy_ci95,throughput_mean,throughput_ci95";
+
+	/**
+	 * Runs the sweep and writes the results table, one line per cell, in the order
+	 * designs x rates
+	 * 
+	 * @param designNames  are the names of the lot-design files
+	 * @param rates        are the hourly arrival rates
+	 * @param replications is the number of replications per cell
+	 * @param steps        is the number of steps of each replication
+	 * @param mode         is how the simulations are advanced
+	 * @param seed         is the seed from which all streams are derived
+	 * @param threads      is the number of worker threads
+	 * @param out          is where the table is written (CSV)
+	 * @throws Exception if a design cannot be loaded or a replication fails
+	 */
+	public static void sweep(String[] designNames, int[] rates, int replications, int steps, SimulationMode mode,
+			long seed, int threads, PrintStream out) throws Exception {
+
+		ParkingLot[] designs = new ParkingLot[designNames.length];
+		for (int d = 0; d < designs.length; d++) {
+			designs[d] = new ParkingLot(designNames[d]);
+		}
+
+		RandomSource root = new SplitMix64(seed);
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+		try {
+			List<List<Future<ReplicationResult>>> cells = new ArrayList<List<Future<ReplicationResult>>>();
+			for (int d = 0; d < designs.length; d++) {
+				for (int rate : rates) {
+					List<Future<ReplicationResult>> cell = new ArrayList<Future<ReplicationResult>>();
+					for (int r = 0; r < replications; r++) {
+						final ParkingLot design = designs[d];
+						final RandomSource stream = root.split();
+						cell.add(pool.submit(() -> ReplicationRunner.runReplication(design, rate, steps, mode, stream)));
+					}
+					cells.add(cell);
+				}
+			}
+
+			out.println(HEADER);
+			int c = 0;
+			for (int d = 0; d < designs.length; d++) {
+				for (int rate : rates) {
+					List<Future<ReplicationResult>> cell = cells.get(c++);
+					ReplicationResult[] results = new ReplicationResult[cell.size()];
+					for (int r = 0; r < results.length; r++) {
+						results[r] = cell.get(r).get();
+					}
+					ReplicationRunner.Summary summary = new ReplicationRunner.Summary(results);
+					out.println(csv(designNames[d]) + "," + rate + "," + designs[d].getTotalCapacity() + "," + replications
+							+ "," + format(summary.getQueueLength()) + "," + format(summary.getOccupancy()) + ","
+							+ format(summary.getThroughput()));
+				}
+			}
+			out.flush();
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private static String format(SummaryStatistics statistics) {
+		return String.format("%.3f,%.3f", statistics.getMean(), statistics.getHalfWidth95());
+	}
+
+	/**
+	 * @param field is a value of the table
+	 * @return the value, quoted if it contains a comma, a quote or a line break
+	 */
+	private static String csv(String field) {
+		if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+			return field;
+		}
+		return '"' + field.replace("\"", "\"\"") + '"';
+	}
+
+	/**
+	 * Parses a list of rates, given as comma-separated values and/or ranges
+	 * start:end:step, e.g. "5,10,20:60:10"
+	 * 
+	 * @param text is the list of rates
+	 * @return the rates, in the order given
+	 */
+	public static int[] parseRates(String text) {
+		List<Integer> rates = new ArrayList<Integer>();
+		for (String token : text.split(",")) {
+			token = token.trim();
+			if (token.isEmpty()) {
+				continue;
+			}
+			String[] range = token.split(":");
+			if (range.length == 1) {
+				rates.add(Integer.parseInt(range[0].trim()));
+			} else {
+				int start = Integer.parseInt(range[0].trim());
+				int end = Integer.parseInt(range[1].trim());
+				int step = (range.length > 2) ? Integer.parseInt(range[2].trim()) : 1;
+				if (step <= 0) {
+					throw new IllegalArgumentException("The step of a range of rates should be positive: " + token);
+				}
+				for (long rate = start; rate <= end; rate += step) { // long, so the last step cannot overflow
+					rates.add((int) rate);
+				}
+			}
+		}
+		int[] result = new int[rates.size()];
+		for (int k = 0; k < result.length; k++) {
+			result[k] = rates.get(k);
+		}
+		return result;
+	}
+
+	/**
+	 * @param args the comma-separated lot-design filenames, the hourly rates of
+	 *             arrival, the number of replications per cell, and optionally the
+	 *             simulation mode, the seed and the output filename
+	 * @throws Exception
+	 */
+	public static void main(String args[]) throws Exception {
+
+		if (args.length < 3) {
+			System.out.println(
+					"Usage: java SweepRunner <lot-design filenames> <hourly rates of arrival> <replications> [mode] [seed] [output file]");
+			System.out.println("Example: java SweepRunner parking.inf,parking2.inf 5,10,20:60:10 30 NEXT_EVENT 42 sweep.csv");
+			return;
+		}
+
+		String[] designNames = args[0].split(",");
+		int[] rates = parseRates(args[1]);
+		int replications = Integer.parseInt(args[2]);
+		SimulationMode mode = (args.length > 3) ? SimulationMode.valueOf(args[3].toUpperCase())
+				: SimulationMode.NEXT_EVENT;
+		long seed = (args.length > 4) ? Long.parseLong(args[4]) : System.nanoTime();
+
+		long start = System.currentTimeMillis();
+		if (args.length > 5) {
+			try (PrintStream out = new PrintStream(args[5])) {
+				sweep(designNames, rates, replications, Simulator.SIMULATION_DURATION, mode, seed,
+						Runtime.getRuntime().availableProcessors(), out);
+			}
+		} else {
+			sweep(designNames, rates, replications, Simulator.SIMULATION_DURATION, mode, seed,
+					Runtime.getRuntime().availableProcessors(), System.out);
+		}
+		long end = System.currentTimeMillis();
+
+		System.out.println("seed: " + seed + ", " + designNames.length * rates.length + " cells, sweep took "
+				+ (end - start) + "ms.");
+	}
+}
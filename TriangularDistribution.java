@@ -15,6 +15,19 @@ public class TriangularDistribution {
 	 */
 	int a, c, b;
 
+	/**
+	 * Lookup tables over the integer points a..b: density[x - a] is pdf(x) and
+	 * cumulative[x - a] is the sum of pdf(a) .. pdf(x), as doubles (the sums are
+	 * rescaled so that the last one is exactly 1)
+	 */
+	private double[] density, cumulative;
+
+	/**
+	 * Guide table for sampling by inversion: guide[k] is the smallest x - a with
+	 * cumulative[x - a] >= k / guide.length
+	 */
+	private int[] guide;
+
 	/**
 	 * Constructor for TriangularDistribution. You need to verify that the following
 	 * condition holds: a < c AND c < b
@@ -32,6 +45,42 @@ public class TriangularDistribution {
 			this.c = c;
 		}
 
+		tabulate();
+	}
+
+	private void tabulate() {
+		if (b <= a) {
+			// the parameters were rejected; every value is a
+			density = new double[] { 0.0 };
+			cumulative = new double[] { 1.0 };
+			guide = new int[] { 0 };
+			return;
+		}
+
+		int n = b - a + 1;
+		density = new double[n];
+		cumulative = new double[n];
+
+		double sum = 0;
+		for (int k = 0; k < n; k++) {
+			density[k] = Math.max(0.0, pdf(a + k).toDouble());
+			sum += density[k];
+			cumulative[k] = sum;
+		}
+		// rescale so that the last entry is exactly 1 despite rounding
+		for (int k = 0; k < n; k++) {
+			cumulative[k] = (sum > 0) ? cumulative[k] / sum : 1.0;
+		}
+		cumulative[n - 1] = 1.0;
+
+		guide = new int[n];
+		int x = 0;
+		for (int k = 0; k < n; k++) {
+			while (cumulative[x] < (double) k / n) {
+				x++;
+			}
+			guide[k] = x;
+		}
 	}
 
 	/**
@@ -40,30 +89,74 @@ public class TriangularDistribution {
 	 */
 	public Rational pdf(int x) {
 
-		// WRITE YOUR CODE HERE!
-		Rational value = new Rational(1,1);
 		if (x<this.a || x>this.b) {
-			value = new Rational(0,1);
-
+			return Rational.zero;
 		}
 		if (x<this.c){
 			int numerator = 2*(x-this.a);
 			int denumerator = (this.b-this.a)*(this.c-this.a);
-			value = new Rational(numerator, denumerator);
-			return value;
+			return new Rational(numerator, denumerator);
 		}
 		if (x==this.c) {
 			int numerator = 2;
 			int denumerator = (this.b-this.a);
-			value = new Rational(numerator, denumerator);
-			return value;
+			return new Rational(numerator, denumerator);
 		}
 		else {
 			int numerator = 2*(this.b-x);
 			int denumerator = (this.b-this.a)*(this.b-this.c);
-			value = new Rational(numerator, denumerator);
-			return value;
+			return new Rational(numerator, denumerator);
+		}
+	}
+
+	/**
+	 * Same as pdf, read from a precomputed table; does not allocate
+	 * 
+	 * @param x is a point on the x axis
+	 * @return the probability density at point x, as a double
+	 */
+	public double density(int x) {
+		if (x < a || x > b) {
+			return 0.0;
+		}
+		return density[x - a];
+	}
+
+	/**
+	 * @param x is a point on the x axis
+	 * @return the probability that a value sampled from this distribution is at
+	 *         most x
+	 */
+	public double cdf(int x) {
+		if (x < a) {
+			return 0.0;
+		}
+		if (x > b) {
+			return 1.0;
 		}
+		return cumulative[x - a];
+	}
+
+	/**
+	 * Inverse of the cumulative distribution function
+	 * 
+	 * @param u is a probability in [0, 1]
+	 * @return the smallest integer point x with cdf(x) >= u
+	 */
+	public int inverseCdf(double u) {
+		int k = (int) (u * guide.length);
+		int x = guide[Math.min(Math.max(k, 0), guide.length - 1)];
+		while (x < cumulative.length - 1 && cumulative[x] < u) {
+			x++;
+		}
+		return a + x;
+	}
+
+	/**
+	 * @return an integer point sampled from this distribution
+	 */
+	public int sample() {
+		return inverseCdf(RandomGenerator.nextUniform());
 	}
 
 	/**
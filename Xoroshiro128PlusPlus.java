@@ -0,0 +1,100 @@
+/**
+ * The xoroshiro128++ generator of Blackman and Vigna: two longs of state, a
+ * period of 2^128 - 1, and a jump function that moves the generator 2^64 values
+ * ahead. Seeded the same way as the JDK's Xoroshiro128PlusPlus, so it produces
+ * the same values for the same seed, but its state can be read and restored.
+ *
+ * An instance is not thread-safe; split it to give each thread its own stream.
+ * A split stream is seeded from values drawn from its parent, so splits of
+ * splits are as independent as the first ones; for streams that provably do
+ * not overlap, copy the generator and jump the original instead.
+ */
+public class Xoroshiro128PlusPlus implements RandomSource {
+
+	private static final long GOLDEN_RATIO_64 = 0x9e3779b97f4a7c15L;
+	private static final long SILVER_RATIO_64 = 0x6a09e667f3bcc909L;
+
+	/**
+	 * The polynomial of a jump of 2^64 values
+	 */
+	private static final long[] JUMP = { 0x2bd7a6a6e99c2ddcL, 0x0992ccaf6a6fca05L };
+
+	private long x0, x1;
+
+	/**
+	 * @param seed is the seed
+	 */
+	public Xoroshiro128PlusPlus(long seed) {
+		seed ^= SILVER_RATIO_64;
+		this.x0 = SplitMix64.mix64(seed);
+		this.x1 = SplitMix64.mix64(seed + GOLDEN_RATIO_64);
+	}
+
+	/**
+	 * Constructs a generator from a state returned by getState
+	 *
+	 * @param x0 is the first half of the state
+	 * @param x1 is the second half of the state; the state must not be all zeros
+	 */
+	public Xoroshiro128PlusPlus(long x0, long x1) {
+		if ((x0 | x1) == 0) {
+			throw new IllegalArgumentException("The state of the generator cannot be all zeros");
+		}
+		this.x0 = x0;
+		this.x1 = x1;
+	}
+
+	public long nextLong() {
+		long s0 = x0;
+		long s1 = x1;
+		long result = Long.rotateLeft(s0 + s1, 17) + s0;
+		s1 ^= s0;
+		x0 = Long.rotateLeft(s0, 49) ^ s1 ^ (s1 << 21);
+		x1 = Long.rotateLeft(s1, 28);
+		return result;
+	}
+
+	public int nextInt() {
+		return (int) (nextLong() >>> 32);
+	}
+
+	/**
+	 * Moves the generator 2^64 values ahead
+	 */
+	public void jump() {
+		long s0 = 0;
+		long s1 = 0;
+		for (long word : JUMP) {
+			for (int b = 0; b < 64; b++) {
+				if ((word & (1L << b)) != 0) {
+					s0 ^= x0;
+					s1 ^= x1;
+				}
+				nextLong();
+			}
+		}
+		x0 = s0;
+		x1 = s1;
+	}
+
+	/**
+	 * @return a generator whose state is two values of this one, mixed by
+	 *         SplitMix64 (as the JDK seeds split generators)
+	 */
+	public Xoroshiro128PlusPlus split() {
+		long s0 = SplitMix64.mix64(nextLong());
+		long s1 = SplitMix64.mix64(nextLong());
+		if ((s0 | s1) == 0) {
+			s1 = GOLDEN_RATIO_64; // the one state the generator cannot have
+		}
+		return new Xoroshiro128PlusPlus(s0, s1);
+	}
+
+	public Kind getKind() {
+		return Kind.XOROSHIRO128PLUSPLUS;
+	}
+
+	public long[] getState() {
+		return new long[] { x0, x1 };
+	}
+}
@@ -0,0 +1,74 @@
+package parking;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.SplittableRandom;
+
+/**
+ * Lot designs and cars shared by the benchmarks
+ */
+final class BenchmarkLots {
+
+	private BenchmarkLots() {
+	}
+
+	/**
+	 * @param lot is a lot-design filename (looked up in the working directory and
+	 *            then in its parent, the root of the repository), or a number of
+	 *            spots for a random design of that size
+	 * @return the lot-design filename
+	 * @throws Exception if the design cannot be written
+	 */
+	static String design(String lot) throws Exception {
+		if (lot.chars().allMatch(Character::isDigit)) {
+			return generateDesign(Integer.parseInt(lot));
+		}
+		File file = new File(lot);
+		if (!file.exists() && new File("..", lot).exists()) {
+			file = new File("..", lot);
+		}
+		return file.getPath();
+	}
+
+	/**
+	 * Writes a random lot design with the given number of spots (100 per row),
+	 * always the same one for a given number
+	 *
+	 * @param spots is the number of spots
+	 * @return the name of the (temporary) lot-design file
+	 * @throws Exception if the design cannot be written
+	 */
+	static String generateDesign(int spots) throws Exception {
+		File file = File.createTempFile("lot-" + spots + "-", ".inf");
+		file.deleteOnExit();
+		SplittableRandom random = new SplittableRandom(spots);
+		String labels = "ESRRRLLN";
+		try (PrintWriter out = new PrintWriter(file)) {
+			int perRow = Math.min(100, spots);
+			for (int row = 0; row < (spots + perRow - 1) / perRow; row++) {
+				StringBuilder line = new StringBuilder();
+				for (int j = 0; j < perRow; j++) {
+					if (j > 0) {
+						line.append(", ");
+					}
+					line.append(labels.charAt(random.nextInt(labels.length())));
+				}
+				out.println(line);
+			}
+		}
+		return file.getPath();
+	}
+
+	/**
+	 * @param count is the number of cars
+	 * @return random cars, always the same ones
+	 */
+	static Car[] cars(int count) {
+		SplittableRandom random = new SplittableRandom(42);
+		Car[] cars = new Car[count];
+		for (int k = 0; k < count; k++) {
+			cars[k] = RandomGenerator.generateRandomCar(random);
+		}
+		return cars;
+	}
+}
@@ -0,0 +1,44 @@
+package parking;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The departure distribution: the exact Rational pdf and its double density,
+ * over every parking duration in turn
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistributionBenchmark {
+
+	private final TriangularDistribution distribution = Simulator.departurePDF;
+	private int duration;
+
+	private int nextDuration() {
+		duration = (duration + 1) % Simulator.MAX_PARKING_DURATION;
+		return duration;
+	}
+
+	@Benchmark
+	public Rational pdf() {
+		return distribution.pdf(nextDuration());
+	}
+
+	@Benchmark
+	public double density() {
+		return distribution.density(nextDuration());
+	}
+}
@@ -0,0 +1,75 @@
+package parking;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ParkingLot.attemptParking, canParkAt and getTotalOccupancy on lots of several
+ * sizes. The lot is kept about half full: each attemptParking operation parks a
+ * car and removes it again.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParkingLotBenchmark {
+
+	/**
+	 * The number of spots, or a lot-design filename
+	 */
+	@Param({ "1000", "100000" })
+	public String lot;
+
+	@Param({ "FIRST_FIT", "BEST_FIT", "NEAREST_ENTRANCE" })
+	public AllocationStrategy.Kind strategy;
+
+	private ParkingLot parkingLot;
+	private Car[] cars;
+	private int rows, perRow;
+	private int next;
+
+	@Setup
+	public void setUp() throws Exception {
+		parkingLot = new ParkingLot(BenchmarkLots.design(lot));
+		parkingLot.setAllocationStrategy(strategy);
+		cars = BenchmarkLots.cars(1024);
+		rows = parkingLot.getNumRows();
+		perRow = parkingLot.getNumSpotsPerRow();
+		for (int k = 0; k < parkingLot.getTotalCapacity() / 2; k++) {
+			parkingLot.attemptParking(cars[k & 1023], 0);
+		}
+	}
+
+	@Benchmark
+	public int attemptParking() {
+		int position = parkingLot.attemptParkingAt(cars[next++ & 1023], 0);
+		if (position >= 0) {
+			parkingLot.remove(position / perRow, position % perRow);
+		}
+		return position;
+	}
+
+	@Benchmark
+	public boolean canParkAt() {
+		int k = next++;
+		return parkingLot.canParkAt((k >>> 7) % rows, k % perRow, cars[k & 1023]);
+	}
+
+	@Benchmark
+	public int getTotalOccupancy() {
+		return parkingLot.getTotalOccupancy();
+	}
+}
@@ -0,0 +1,52 @@
+package parking;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Enqueue and dequeue on the queue implementations, holding a given number of
+ * waiting cars
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueueBenchmark {
+
+	@Param({ "LinkedQueue", "ArrayQueue" })
+	public String implementation;
+
+	@Param({ "16", "4096" })
+	public int length;
+
+	private Queue<Spot> queue;
+	private Spot spot;
+
+	@Setup
+	public void setUp() {
+		queue = implementation.equals("LinkedQueue") ? new LinkedQueue<Spot>() : new ArrayQueue<Spot>();
+		spot = new Spot(BenchmarkLots.cars(1)[0], 0);
+		for (int k = 0; k < length; k++) {
+			queue.enqueue(spot);
+		}
+	}
+
+	@Benchmark
+	public Spot enqueueDequeue() {
+		queue.enqueue(spot);
+		return queue.dequeue();
+	}
+}
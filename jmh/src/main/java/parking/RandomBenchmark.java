@@ -0,0 +1,74 @@
+package parking;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * RandomGenerator.eventOccurred and generateRandomCar on each source of
+ * randomness, the first being the java.util.Random the simulator used to share.
+ * Each source is measured in its own fork, so the call sites only ever see one
+ * source.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomBenchmark {
+
+	/**
+	 * The per-second arrival probability at 11 cars per hour
+	 */
+	static final Rational ARRIVAL = new Rational(11, 3600);
+
+	@Param({ "Random", "SplittableRandom", "SplitMix64", "Xoroshiro128PlusPlus", "Philox2x64" })
+	public String source;
+
+	private java.util.random.RandomGenerator generator;
+
+	@Setup
+	public void setUp() {
+		switch (source) {
+		case "Random":
+			generator = new java.util.Random(42);
+			break;
+		case "SplittableRandom":
+			generator = new SplittableRandom(42);
+			break;
+		case "SplitMix64":
+			generator = new SplitMix64(42);
+			break;
+		case "Xoroshiro128PlusPlus":
+			generator = new Xoroshiro128PlusPlus(42);
+			break;
+		case "Philox2x64":
+			generator = new Philox2x64(42);
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown source: " + source);
+		}
+	}
+
+	@Benchmark
+	public boolean eventOccurred() {
+		return RandomGenerator.eventOccurred(ARRIVAL, generator);
+	}
+
+	@Benchmark
+	public Car generateRandomCar() {
+		return RandomGenerator.generateRandomCar(generator);
+	}
+}
@@ -0,0 +1,53 @@
+package parking;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * RandomGenerator.eventOccurred on the default source (a stream per thread), and
+ * four threads drawing from one java.util.Random or each from its own stream
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomSharingBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class SharedRandom {
+		final java.util.Random random = new java.util.Random(42);
+	}
+
+	@State(Scope.Thread)
+	public static class OwnStream {
+		final SplitMix64 stream = new SplitMix64();
+	}
+
+	@Benchmark
+	public boolean defaultSource() {
+		return RandomGenerator.eventOccurred(RandomBenchmark.ARRIVAL);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public boolean sharedRandom(SharedRandom shared) {
+		return RandomGenerator.eventOccurred(RandomBenchmark.ARRIVAL, shared.random);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public boolean streamPerThread(OwnStream own) {
+		return RandomGenerator.eventOccurred(RandomBenchmark.ARRIVAL, own.stream);
+	}
+}
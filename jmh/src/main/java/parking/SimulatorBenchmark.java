@@ -0,0 +1,62 @@
+package parking;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A full 24h Simulator.simulate, silent, by lot, mode and hourly arrival rate.
+ * Every invocation simulates the same day (same seed) on an empty copy of the
+ * lot.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulatorBenchmark {
+
+	/**
+	 * A lot-design filename, or the number of spots of a random design
+	 */
+	@Param({ "parking.inf", "test.inf", "1000" })
+	public String lot;
+
+	@Param({ "TIME_STEPPED", "EVENT_DRIVEN", "NEXT_EVENT" })
+	public SimulationMode mode;
+
+	@Param({ "11", "600" })
+	public int rate;
+
+	@Param({ "true", "false" })
+	public boolean metrics;
+
+	private ParkingLot design;
+
+	@Setup
+	public void setUp() throws Exception {
+		design = new ParkingLot(BenchmarkLots.design(lot));
+	}
+
+	@Benchmark
+	public int simulate() {
+		Simulator sim = new Simulator(new ParkingLot(design), rate, Simulator.SIMULATION_DURATION, mode,
+				new SplittableRandom(rate));
+		sim.setEventSink(NullEventSink.INSTANCE);
+		sim.setMetricsEnabled(metrics);
+		sim.simulate();
+		return sim.getEnteredCount();
+	}
+}
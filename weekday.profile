@@ -0,0 +1,14 @@
+# Arrivals on a weekday, in cars per hour: a morning peak, a lunch bump and
+# an evening peak, interpolated linearly between the breakpoints
+period 24
+linear
+0:00 1
+5:00 2
+7:00 25
+8:30 40
+10:00 12
+12:00 18
+14:00 10
+17:00 22
+19:00 8
+22:00 3